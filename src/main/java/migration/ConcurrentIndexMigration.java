@@ -0,0 +1,117 @@
+package migration;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Строит индекс, не блокируя запись в таблицу.
+ * CREATE INDEX CONCURRENTLY не работает на секционированной таблице, поэтому для неё индекс
+ * создаётся ON ONLY на родителе, строится конкурентно в каждой секции и подключается через ATTACH.
+ * Повторный запуск после сбоя удаляет недостроенные (INVALID) индексы и продолжает.
+ */
+public class ConcurrentIndexMigration implements Migration {
+
+    private static final String IS_PARTITIONED = """
+            SELECT c.relkind = 'p' FROM pg_class AS c WHERE c.oid = to_regclass(?)
+            """;
+
+    private static final String GET_PARTITIONS = """
+            SELECT c.relname FROM pg_inherits AS i
+            JOIN pg_class AS c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            ORDER BY c.relname
+            """;
+
+    // NULL — индекса нет
+    private static final String IS_VALID = """
+            SELECT i.indisvalid FROM pg_index AS i WHERE i.indexrelid = to_regclass(?)
+            """;
+
+    private final int version;
+    private final String name;
+    private final String table;
+    private final String columns;
+
+    /**
+     * @param columns список колонок индекса, например "(status, status_changed_at)"
+     */
+    public ConcurrentIndexMigration(int version, String name, String table, String columns) {
+        this.version = version;
+        this.name = name;
+        this.table = table;
+        this.columns = columns;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return table + " " + name;
+    }
+
+    @Override
+    public long getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update((name + ' ' + table + ' ' + columns).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        if (!queryBoolean(connection, IS_PARTITIONED, table)) {
+            execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + name);
+            execute(connection, "CREATE INDEX CONCURRENTLY " + name + " ON " + table + " " + columns);
+            return;
+        }
+        execute(connection, "CREATE INDEX IF NOT EXISTS " + name + " ON ONLY " + table + " " + columns);
+        for (String partition : getPartitions(connection)) {
+            String partitionIndex = partition + "_" + name;
+            if (!queryBoolean(connection, IS_VALID, partitionIndex)) {
+                execute(connection, "DROP INDEX CONCURRENTLY IF EXISTS " + partitionIndex);
+                execute(connection, "CREATE INDEX CONCURRENTLY " + partitionIndex + " ON " + partition + " " + columns);
+            }
+            // индекс родителя становится валидным, когда подключены индексы всех секций
+            execute(connection, "ALTER INDEX " + name + " ATTACH PARTITION " + partitionIndex);
+        }
+    }
+
+    private List<String> getPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (var ps = connection.prepareStatement(GET_PARTITIONS)) {
+            ps.setString(1, table);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql, String argument) throws SQLException {
+        try (var ps = connection.prepareStatement(sql)) {
+            ps.setString(1, argument);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Одна версия схемы. Применяется один раз и записывается в schema_history.
+ */
+public interface Migration {
+
+    int getVersion();
+
+    String getDescription();
+
+    /**
+     * Контрольная сумма содержимого; если у применённой миграции она изменилась, запуск прерывается.
+     */
+    long getChecksum();
+
+    /**
+     * false — для команд, которые нельзя выполнять в транзакции (CREATE INDEX CONCURRENTLY).
+     * Такая миграция должна быть безопасна для повторного запуска после сбоя.
+     */
+    boolean isTransactional();
+
+    void migrate(Connection connection) throws SQLException;
+}
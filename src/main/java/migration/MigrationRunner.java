@@ -0,0 +1,174 @@
+package migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Применяет миграции по возрастанию версии и записывает их в schema_history.
+ * Несколько экземпляров приложения не мигрируют одновременно: runner держит advisory lock.
+ */
+public class MigrationRunner {
+
+    private static final Logger LOG = Logger.getLogger(MigrationRunner.class.getName());
+
+    // произвольный ключ advisory lock, общий для всех экземпляров
+    private static final long LOCK_KEY = 0x5EC7_0001L;
+
+    private static final String CREATE_HISTORY = """
+            CREATE TABLE IF NOT EXISTS schema_history
+            (
+                version INT PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                checksum BIGINT NOT NULL,
+                installed_at TIMESTAMP NOT NULL DEFAULT now(),
+                execution_ms BIGINT NOT NULL
+            )
+            """;
+
+    // не pg_advisory_lock: ожидающий его запрос держит снимок, а CREATE INDEX CONCURRENTLY
+    // у экземпляра с блокировкой ждёт все более старые снимки — два экземпляра ждали бы друг друга
+    private static final String TRY_LOCK = """
+            SELECT pg_try_advisory_lock(?)
+            """;
+
+    private static final long LOCK_RETRY_MS = 200;
+
+    private static final String UNLOCK = """
+            SELECT pg_advisory_unlock(?)
+            """;
+
+    private static final String GET_APPLIED = """
+            SELECT version, checksum FROM schema_history
+            """;
+
+    private static final String ADD_APPLIED = """
+            INSERT INTO schema_history(version, description, checksum, execution_ms) VALUES (?,?,?,?)
+            """;
+
+    private final Supplier<Connection> connections;
+    private final List<Migration> migrations;
+
+    public MigrationRunner(Supplier<Connection> connections, List<Migration> migrations) {
+        this.connections = connections;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+    }
+
+    /**
+     * @return количество применённых миграций
+     */
+    public int migrate() throws SQLException {
+        try (Connection connection = connections.get()) {
+            connection.setAutoCommit(true);
+            try (var statement = connection.createStatement()) {
+                statement.execute(CREATE_HISTORY);
+            }
+            lock(connection);
+            try {
+                return applyPending(connection);
+            } finally {
+                execute(connection, UNLOCK);
+            }
+        }
+    }
+
+    // опрос в autocommit: между попытками у соединения нет ни транзакции, ни снимка
+    private static void lock(Connection connection) throws SQLException {
+        boolean logged = false;
+        while (true) {
+            try (var ps = connection.prepareStatement(TRY_LOCK)) {
+                ps.setLong(1, LOCK_KEY);
+                try (var rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+            }
+            if (!logged) {
+                LOG.info("Waiting for another instance to finish schema migration");
+                logged = true;
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the migration lock", e);
+            }
+        }
+    }
+
+    private int applyPending(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = getApplied(connection);
+        int count = 0;
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.getVersion());
+            if (checksum != null) {
+                if (checksum != migration.getChecksum()) {
+                    throw new SQLException("Checksum mismatch for applied migration V" + migration.getVersion()
+                            + " (" + migration.getDescription() + ")");
+                }
+                continue;
+            }
+            apply(connection, migration);
+            count++;
+        }
+        return count;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        LOG.info(() -> "Applying migration V" + migration.getVersion() + " " + migration.getDescription());
+        long start = System.nanoTime();
+        if (!migration.isTransactional()) {
+            // версия записывается только после успеха, поэтому такая миграция должна переживать повторный запуск
+            migration.migrate(connection);
+            record(connection, migration, start);
+            return;
+        }
+        connection.setAutoCommit(false);
+        try {
+            migration.migrate(connection);
+            record(connection, migration, start);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void record(Connection connection, Migration migration, long start) throws SQLException {
+        try (var ps = connection.prepareStatement(ADD_APPLIED)) {
+            ps.setInt(1, migration.getVersion());
+            ps.setString(2, migration.getDescription());
+            ps.setLong(3, migration.getChecksum());
+            ps.setLong(4, (System.nanoTime() - start) / 1_000_000);
+            ps.executeUpdate();
+        }
+    }
+
+    private static Map<Integer, Long> getApplied(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(GET_APPLIED)) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, LOCK_KEY);
+            ps.executeQuery().close();
+        }
+    }
+}
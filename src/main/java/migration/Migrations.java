@@ -0,0 +1,64 @@
+package migration;
+
+import util.ConnectionManager;
+import util.PropertiesUtil;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Список миграций приложения. Новая версия добавляется в конец; применённые скрипты не меняются.
+ */
+public final class Migrations {
+
+    private static final String LOCATION = "db/migration/";
+    private static final String TASKS_PARTITIONS_KEY = "db.tasks.partitions";
+
+    private Migrations() {
+    }
+
+    public static List<Migration> all() {
+        return all(PropertiesUtil.getInt(TASKS_PARTITIONS_KEY, 0));
+    }
+
+    /**
+     * @param tasksPartitions число hash-секций tasks; 0 — таблица остаётся обычной
+     */
+    public static List<Migration> all(int tasksPartitions) {
+        List<Migration> migrations = new ArrayList<>(List.of(
+                new SqlMigration(1, "baseline", "schema.sql"),
+                new SqlMigration(2, "tasks employee_id index", LOCATION + "V2__tasks_employee_id_index.sql"),
+                new SqlMigration(3, "employee_activity activity_id index", LOCATION + "V3__employee_activity_activity_id_index.sql")
+        ));
+        // V4 может примениться и после следующих версий, если секционирование включили на работающей базе
+        if (tasksPartitions > 0) {
+            migrations.add(new PartitionTasksMigration(4, tasksPartitions));
+        }
+        migrations.add(new SqlMigration(5, "tasks archive", LOCATION + "V5__tasks_archive.sql"));
+        migrations.add(new ConcurrentIndexMigration(6, "tasks_status_changed_at_idx", "tasks", "(status, status_changed_at)"));
+        migrations.add(new SqlMigration(7, "task status dictionary", LOCATION + "V7__task_status_dictionary.sql"));
+        // выборка по статусу среди всех сотрудников: index-only scan по (status_id, id)
+        migrations.add(new ConcurrentIndexMigration(8, "tasks_status_id_idx", "tasks",
+                "(status_id, id) INCLUDE (title, employee_id)"));
+        return migrations;
+    }
+
+    public static int migrate() throws SQLException {
+        return new MigrationRunner(ConnectionManager::get, all()).migrate();
+    }
+
+    /**
+     * Миграция базы по адресу, минуя пул приложения.
+     */
+    public static int migrate(String url, String username, String password) throws SQLException {
+        return new MigrationRunner(() -> {
+            try {
+                return DriverManager.getConnection(url, username, password);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, all()).migrate();
+    }
+}
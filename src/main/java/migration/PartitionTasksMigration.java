@@ -0,0 +1,220 @@
+package migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Переводит tasks на hash-секционирование по employee_id.
+ * Все чтения задач фильтруются по employee_id, поэтому планировщик оставляет одну секцию.
+ * Перенос идёт одной транзакцией под эксклюзивной блокировкой tasks — на больших таблицах
+ * миграцию нужно запускать в окно обслуживания.
+ * Уникальность id обеспечивает последовательность: первичный ключ обязан содержать ключ секционирования.
+ */
+public class PartitionTasksMigration implements Migration {
+
+    private static final String IS_PARTITIONED = """
+            SELECT c.relkind = 'p' FROM pg_class AS c WHERE c.oid = 'tasks'::regclass
+            """;
+
+    private static final String COUNT_WITHOUT_EMPLOYEE = """
+            SELECT count(*) FROM tasks WHERE employee_id IS NULL
+            """;
+
+    private static final String RENAME_OLD = """
+            ALTER TABLE tasks RENAME TO tasks_unpartitioned
+            """;
+
+    private static final String CREATE_SEQUENCE = """
+            CREATE SEQUENCE tasks_partitioned_id_seq AS BIGINT
+            """;
+
+    // колонки и их умолчания берутся из текущей таблицы: миграция может применяться после более поздних версий.
+    // INCLUDE в первичном ключе даёт index-only scan для выборки задач сотрудника
+    private static final String CREATE_TABLE = """
+            CREATE TABLE tasks
+            (
+                LIKE tasks_unpartitioned INCLUDING DEFAULTS,
+                CONSTRAINT tasks_pkey_partitioned PRIMARY KEY (employee_id, id) INCLUDE (title, %s)
+            ) PARTITION BY HASH (employee_id)
+            """;
+
+    // до V7 статус хранится строкой в status, после — кодом в status_id
+    private static final String GET_STATUS_COLUMN = """
+            SELECT attname FROM pg_attribute
+            WHERE attrelid = 'tasks_unpartitioned'::regclass AND attname IN ('status', 'status_id') AND NOT attisdropped
+            """;
+
+    // LIKE не копирует внешние ключи; имена ограничений уникальны только в пределах таблицы
+    private static final String GET_FOREIGN_KEYS = """
+            SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint
+            WHERE conrelid = 'tasks_unpartitioned'::regclass AND contype = 'f'
+            """;
+
+    private static final String SET_ID_DEFAULT = """
+            ALTER TABLE tasks ALTER COLUMN id SET DEFAULT nextval('tasks_partitioned_id_seq'::regclass)
+            """;
+
+    private static final String OWN_SEQUENCE = """
+            ALTER SEQUENCE tasks_partitioned_id_seq OWNED BY tasks.id
+            """;
+
+    private static final String CREATE_PARTITION = """
+            CREATE TABLE tasks_p%1$d PARTITION OF tasks FOR VALUES WITH (MODULUS %2$d, REMAINDER %1$d)
+            """;
+
+    // для обновления и удаления по id без employee_id: по одному короткому поиску в каждой секции
+    private static final String CREATE_ID_INDEX = """
+            CREATE INDEX tasks_id_idx ON tasks (id)
+            """;
+
+    private static final String COPY_ROWS = """
+            INSERT INTO tasks SELECT * FROM tasks_unpartitioned
+            """;
+
+    // первичный ключ и индекс V2 заменяет новый первичный ключ, остальные индексы переносятся как есть
+    private static final String GET_SECONDARY_INDEXES = """
+            SELECT indexdef FROM pg_indexes
+            WHERE schemaname = current_schema() AND tablename = 'tasks_unpartitioned'
+              AND indexname NOT IN ('tasks_pkey', 'tasks_employee_id_idx')
+            """;
+
+    private static final Pattern OLD_TABLE = Pattern.compile(" ON [\\w.\"]*tasks_unpartitioned ");
+
+    private static final String SYNC_SEQUENCE = """
+            SELECT setval('tasks_partitioned_id_seq', coalesce(max(id), 0) + 1, false) FROM tasks
+            """;
+
+    private static final String DROP_OLD = """
+            DROP TABLE tasks_unpartitioned
+            """;
+
+    // прежние имена освобождаются вместе со старой таблицей
+    private static final String RENAME_CONSTRAINT = """
+            ALTER TABLE tasks RENAME CONSTRAINT tasks_pkey_partitioned TO tasks_pkey
+            """;
+
+    private static final String RENAME_SEQUENCE = """
+            ALTER SEQUENCE tasks_partitioned_id_seq RENAME TO tasks_id_seq
+            """;
+
+    private final int version;
+    private final int partitions;
+
+    public PartitionTasksMigration(int version, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        this.version = version;
+        this.partitions = partitions;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return "partition tasks by employee_id into " + partitions;
+    }
+
+    /**
+     * Число секций входит в контрольную сумму: изменить его после применения конфигом нельзя.
+     */
+    @Override
+    public long getChecksum() {
+        return partitions;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        if (queryBoolean(connection, IS_PARTITIONED)) {
+            return;
+        }
+        if (queryLong(connection, COUNT_WITHOUT_EMPLOYEE) > 0) {
+            throw new SQLException("Tasks without employee_id cannot be partitioned");
+        }
+        execute(connection, RENAME_OLD);
+        execute(connection, CREATE_SEQUENCE);
+        execute(connection, String.format(CREATE_TABLE, queryString(connection, GET_STATUS_COLUMN)));
+        execute(connection, SET_ID_DEFAULT);
+        execute(connection, OWN_SEQUENCE);
+        for (int i = 0; i < partitions; i++) {
+            execute(connection, String.format(CREATE_PARTITION, i, partitions));
+        }
+        execute(connection, CREATE_ID_INDEX);
+        execute(connection, COPY_ROWS);
+        // ключи проверяются один раз по уже перенесённым строкам
+        for (String[] foreignKey : getForeignKeys(connection)) {
+            execute(connection, "ALTER TABLE tasks ADD CONSTRAINT " + foreignKey[0] + " " + foreignKey[1]);
+        }
+        queryLong(connection, SYNC_SEQUENCE);
+        List<String> indexes = getSecondaryIndexes(connection);
+        execute(connection, DROP_OLD);
+        execute(connection, RENAME_CONSTRAINT);
+        execute(connection, RENAME_SEQUENCE);
+        for (String indexDefinition : indexes) {
+            execute(connection, OLD_TABLE.matcher(indexDefinition).replaceFirst(" ON tasks "));
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static List<String> getSecondaryIndexes(Connection connection) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(GET_SECONDARY_INDEXES)) {
+            while (rs.next()) {
+                indexes.add(rs.getString(1));
+            }
+        }
+        return indexes;
+    }
+
+    private static List<String[]> getForeignKeys(Connection connection) throws SQLException {
+        List<String[]> foreignKeys = new ArrayList<>();
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(GET_FOREIGN_KEYS)) {
+            while (rs.next()) {
+                foreignKeys.add(new String[]{rs.getString(1), rs.getString(2)});
+            }
+        }
+        return foreignKeys;
+    }
+
+    private static String queryString(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new SQLException("Unexpected tasks structure");
+            }
+            return rs.getString(1);
+        }
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement();
+             var rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
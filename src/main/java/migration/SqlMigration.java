@@ -0,0 +1,153 @@
+package migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Миграция из SQL-скрипта в classpath. Скрипт с комментарием "-- no-transaction" выполняется вне транзакции.
+ */
+public class SqlMigration implements Migration {
+
+    private static final String NO_TRANSACTION = "-- no-transaction";
+
+    private final int version;
+    private final String description;
+    private final String script;
+
+    public SqlMigration(int version, String description, String resource) {
+        this.version = version;
+        this.description = description;
+        this.script = load(resource);
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public long getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(script.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return !script.contains(NO_TRANSACTION);
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        for (String sql : statements(script)) {
+            try (var statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Делит скрипт на команды по ';' вне строк, идентификаторов в кавычках, комментариев и $$-блоков.
+     */
+    public static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            int end;
+            if (c == '\'' || c == '"') {
+                end = skipQuoted(script, i, c);
+            } else if (c == '-' && script.startsWith("--", i)) {
+                end = script.indexOf('\n', i);
+                end = end < 0 ? script.length() : end;
+            } else if (c == '/' && script.startsWith("/*", i)) {
+                end = script.indexOf("*/", i + 2);
+                end = end < 0 ? script.length() : end + 2;
+            } else if (c == '$' && dollarTag(script, i) != null) {
+                String tag = dollarTag(script, i);
+                end = script.indexOf(tag, i + tag.length());
+                end = end < 0 ? script.length() : end + tag.length();
+            } else if (c == ';') {
+                add(statements, current);
+                i++;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            current.append(script, i, end);
+            i = end;
+        }
+        add(statements, current);
+        return statements;
+    }
+
+    private static void add(List<String> statements, StringBuilder current) {
+        String sql = current.toString().strip();
+        current.setLength(0);
+        if (!sql.isEmpty() && !isOnlyComments(sql)) {
+            statements.add(sql);
+        }
+    }
+
+    private static boolean isOnlyComments(String sql) {
+        for (String line : sql.split("\n")) {
+            String stripped = line.strip();
+            if (!stripped.isEmpty() && !stripped.startsWith("--")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipQuoted(String script, int start, char quote) {
+        int i = start + 1;
+        while (i < script.length()) {
+            if (script.charAt(i) == quote) {
+                // удвоенная кавычка — часть строки
+                if (i + 1 < script.length() && script.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return script.length();
+    }
+
+    // $$ или $tag$
+    private static String dollarTag(String script, int start) {
+        int i = start + 1;
+        while (i < script.length() && (Character.isLetterOrDigit(script.charAt(i)) || script.charAt(i) == '_')) {
+            i++;
+        }
+        if (i < script.length() && script.charAt(i) == '$' && (i == start + 1 || !Character.isDigit(script.charAt(start + 1)))) {
+            return script.substring(start, i + 1);
+        }
+        return null;
+    }
+
+    private static String load(String resource) {
+        try (InputStream in = SqlMigration.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration script not found: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package model.dto;
+
+import java.util.Objects;
+
+public class ImportErrorDto {
+
+    private long line;
+    private String message;
+
+    public ImportErrorDto() {
+    }
+
+    public ImportErrorDto(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportErrorDto that = (ImportErrorDto) o;
+        return getLine() == that.getLine() && Objects.equals(getMessage(), that.getMessage());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getLine(), getMessage());
+    }
+
+    @Override
+    public String toString() {
+        return "ImportErrorDto{" +
+               "line=" + line +
+               ", message='" + message + '\'' +
+               '}';
+    }
+}
@@ -0,0 +1,67 @@
+package model.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ImportResultDto {
+
+    private long imported;
+    private long rejected;
+    private List<ImportErrorDto> errors;
+
+    public ImportResultDto() {
+    }
+
+    public ImportResultDto(long imported, long rejected, List<ImportErrorDto> errors) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ImportErrorDto> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportErrorDto> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportResultDto that = (ImportResultDto) o;
+        return getImported() == that.getImported() && getRejected() == that.getRejected()
+               && Objects.equals(getErrors(), that.getErrors());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getImported(), getRejected(), getErrors());
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResultDto{" +
+               "imported=" + imported +
+               ", rejected=" + rejected +
+               ", errors=" + errors +
+               '}';
+    }
+}
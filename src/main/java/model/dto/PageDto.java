@@ -0,0 +1,55 @@
+package model.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+public class PageDto<T> {
+
+    private List<T> items;
+    private String nextCursor;
+
+    public PageDto() {
+    }
+
+    public PageDto(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PageDto<?> pageDto = (PageDto<?>) o;
+        return Objects.equals(getItems(), pageDto.getItems()) && Objects.equals(getNextCursor(), pageDto.getNextCursor());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getItems(), getNextCursor());
+    }
+
+    @Override
+    public String toString() {
+        return "PageDto{" +
+               "items=" + items +
+               ", nextCursor='" + nextCursor + '\'' +
+               '}';
+    }
+}
@@ -8,13 +8,14 @@ import java.util.stream.Collectors;
 
 public class EmployeeMapper {
 
+    // незагруженные связи (null) остаются null и в DTO
     public static EmployeeDto toEmployeeDto(Employee employee) {
         return new EmployeeDto(employee.getFirstName(), employee.getLastName(),
                 employee.getPosition(),
-                employee.getActivities().stream()
+                employee.getActivities() == null ? null : employee.getActivities().stream()
                         .map(Activity::getId)
                         .collect(Collectors.toList()),
-                employee.getTasks().stream()
+                employee.getTasks() == null ? null : employee.getTasks().stream()
                         .map(TasksMapper::toTasksDto)
                         .collect(Collectors.toList()));
     }
@@ -0,0 +1,125 @@
+package model.mapper;
+
+import model.dto.EmployeeDto;
+import model.dto.TasksDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Компактная бинарная запись агрегата сотрудника для {@link util.OffHeapStore}:
+ * имя, фамилия, должность, id активностей, затем задачи (название, статус).
+ * Имя и фамилия в задачах не хранятся — в агрегате это всегда сам сотрудник.
+ * Строки — длина в байтах (-1 для null) и UTF-8; списки — число элементов (-1 для null).
+ */
+public class EmployeeSnapshotMapper {
+
+    public static byte[] toBytes(EmployeeDto employeeDto) {
+        byte[] firstName = utf8(employeeDto.getFirstName());
+        byte[] lastName = utf8(employeeDto.getLastName());
+        byte[] position = utf8(employeeDto.getPosition());
+        List<Long> activity = employeeDto.getActivity();
+        List<TasksDto> tasks = employeeDto.getTasks();
+
+        int size = length(firstName) + length(lastName) + length(position) + 2 * Integer.BYTES;
+        if (activity != null) {
+            size += activity.size() * Long.BYTES;
+        }
+        List<byte[]> taskFields = new ArrayList<>(tasks == null ? 0 : tasks.size() * 2);
+        if (tasks != null) {
+            for (TasksDto task : tasks) {
+                byte[] title = utf8(task.getTitle());
+                byte[] status = utf8(task.getStatus());
+                taskFields.add(title);
+                taskFields.add(status);
+                size += length(title) + length(status);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        put(buffer, firstName);
+        put(buffer, lastName);
+        put(buffer, position);
+        buffer.putInt(activity == null ? -1 : activity.size());
+        if (activity != null) {
+            for (Long id : activity) {
+                buffer.putLong(id);
+            }
+        }
+        buffer.putInt(tasks == null ? -1 : tasks.size());
+        for (byte[] field : taskFields) {
+            put(buffer, field);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Разбирает только то, что нужно: без активностей и задач читается лишь начало записи.
+     * Не включённые части возвращаются как null — так же, как их отдаёт репозиторий.
+     */
+    public static EmployeeDto toEmployeeDto(ByteBuffer snapshot, boolean withActivities, boolean withTasks) {
+        ByteBuffer buffer = snapshot.duplicate();
+        String firstName = string(buffer);
+        String lastName = string(buffer);
+        String position = string(buffer);
+
+        int activityCount = buffer.getInt();
+        List<Long> activity = null;
+        if (withActivities && activityCount >= 0) {
+            activity = new ArrayList<>(activityCount);
+            for (int i = 0; i < activityCount; i++) {
+                activity.add(buffer.getLong());
+            }
+        } else if (activityCount > 0) {
+            buffer.position(buffer.position() + activityCount * Long.BYTES);
+        }
+
+        List<TasksDto> tasks = null;
+        if (withTasks) {
+            int taskCount = buffer.getInt();
+            if (taskCount >= 0) {
+                tasks = new ArrayList<>(taskCount);
+                for (int i = 0; i < taskCount; i++) {
+                    String title = string(buffer);
+                    String status = string(buffer);
+                    tasks.add(new TasksDto(firstName, lastName, title, status));
+                }
+            }
+        }
+        return new EmployeeDto(firstName, lastName, position, activity, tasks);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value == null ? -1 : value.length);
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -2,10 +2,12 @@ package repository;
 
 import model.Activity;
 import model.Employee;
+import util.SqlConsumer;
 
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 public interface ActivityRepository {
 
@@ -17,5 +19,25 @@ public interface ActivityRepository {
 
     Activity getActivityById(long activityId) throws SQLException;
 
+    List<Activity> getActivitiesByIds(List<Long> activityIds) throws SQLException;
+
+    List<Activity> getActivities() throws SQLException;
+
+    List<Activity> getActivities(long afterId, int limit) throws SQLException;
+
     Map<Activity, List<Employee>> getActivitiesWithEmployee() throws SQLException;
+
+    Map<Activity, List<Employee>> getActivitiesWithEmployee(long afterId, int limit) throws SQLException;
+
+    /**
+     * Отдаёт активности вместе с сотрудниками по одной, по мере чтения из базы,
+     * не держа в памяти весь результат соединения.
+     */
+    void streamActivitiesWithEmployee(SqlConsumer<Activity> consumer) throws SQLException;
+
+    byte[] getActivitiesWithEmployeeJson() throws SQLException;
+
+    Flow.Publisher<Activity> publishActivities();
+
+    Flow.Publisher<Activity> publishActivitiesWithEmployee();
 }
@@ -0,0 +1,56 @@
+package repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.sql.SQLException;
+
+public interface BulkRepository {
+
+    /**
+     * Колонки CSV: line, id (пусто — выдать из последовательности), emp_firstname, emp_lastname, position.
+     */
+    long importEmployees(CopySource source, RejectHandler rejected) throws SQLException, IOException;
+
+    /**
+     * Колонки CSV: line, title, status, employee_id.
+     */
+    long importTasks(CopySource source, RejectHandler rejected) throws SQLException, IOException;
+
+    /**
+     * Колонки CSV: line, employee_id, activity_id.
+     */
+    long importEmployeeActivities(CopySource source, RejectHandler rejected) throws SQLException, IOException;
+
+    /**
+     * Минимальный и максимальный ключ выгрузки (id, для employee-activity — employee_id); null, если данных нет.
+     *
+     * @param entity employee, task или employee-activity
+     */
+    long[] getExportRange(String entity) throws SQLException;
+
+    /**
+     * Экспортирует снимок текущей транзакции, чтобы параллельные выгрузки на других соединениях видели те же данные.
+     */
+    String exportSnapshot() throws SQLException;
+
+    /**
+     * COPY ... TO STDOUT строк с ключом в [fromId, toId] в CSV (поля — как у импорта) или NDJSON.
+     * Если snapshot не null, запрос выполняется на отдельном соединении в этом снимке.
+     */
+    long export(String entity, boolean csv, boolean header, long fromId, long toId, String snapshot,
+                OutputStream out) throws SQLException, IOException;
+
+    /**
+     * Пишет строки в COPY ... FROM STDIN (FORMAT csv); первая колонка — номер строки во входных данных.
+     */
+    @FunctionalInterface
+    interface CopySource {
+        void writeTo(Writer csv) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface RejectHandler {
+        void reject(long line, String message);
+    }
+}
@@ -2,9 +2,11 @@ package repository;
 
 import model.Activity;
 import model.Employee;
+import util.SqlConsumer;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 public interface EmployeeRepository {
 
@@ -16,8 +18,23 @@ public interface EmployeeRepository {
 
     Employee  getEmployeeById(long employeeId) throws SQLException;
 
+    Employee getEmployeeWithDetails(long employeeId) throws SQLException;
+
+    Employee getEmployeeWithDetails(long employeeId, boolean withActivities, boolean withTasks) throws SQLException;
+
+    byte[] getEmployeeJson(long employeeId) throws SQLException;
+
     List<Activity> findActivityByEmployeeId(long employeeId) throws SQLException;
 
     List<Employee> getEmployeesByActivityId(long activityId) throws SQLException;
 
+    /**
+     * Отдаёт сотрудников активности вместе с их задачами по одному, по мере чтения из базы.
+     */
+    void streamEmployeesWithTasksByActivityId(long activityId, SqlConsumer<Employee> consumer) throws SQLException;
+
+    Flow.Publisher<Employee> publishEmployeesByActivityId(long activityId);
+
+    Flow.Publisher<Activity> publishActivitiesByEmployeeId(long employeeId);
+
 }
@@ -0,0 +1,32 @@
+package repository;
+
+import java.sql.SQLException;
+
+/**
+ * Справочник статусов задач. Коды и названия держатся в памяти; одно название —
+ * один экземпляр String на всё приложение.
+ */
+public interface TaskStatusRepository {
+
+    /**
+     * Загружает справочник целиком; вызывается при старте.
+     */
+    void load() throws SQLException;
+
+    /**
+     * @return название по коду или null для кода 0 (статус не задан)
+     */
+    String getName(short id) throws SQLException;
+
+    /**
+     * @return код названия или null, если такого статуса нет
+     */
+    Short findId(String name) throws SQLException;
+
+    /**
+     * Код названия; новое название добавляется в справочник.
+     *
+     * @return код или null для name == null
+     */
+    Short getOrCreateId(String name) throws SQLException;
+}
@@ -1,9 +1,12 @@
 package repository;
 
 import model.Tasks;
+import util.LongHashMap;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 public interface TasksRepository {
 
@@ -17,4 +20,34 @@ public interface TasksRepository {
 
     List<Tasks> getTasksByEmployeeId(long employeeId) throws SQLException;
 
+    List<Tasks> getTasksByEmployeeId(long employeeId, long afterId, int limit) throws SQLException;
+
+    /**
+     * Страница активных задач всех сотрудников в статусе status, по возрастанию id.
+     *
+     * @param withEmployee заполнить имя и фамилию сотрудника задачи
+     */
+    List<Tasks> getTasksByStatus(String status, long afterId, int limit, boolean withEmployee) throws SQLException;
+
+    /**
+     * Задачи сотрудника вместе с перенесёнными в архив.
+     */
+    List<Tasks> getTasksWithArchivedByEmployeeId(long employeeId) throws SQLException;
+
+    List<Tasks> getTasksWithArchivedByEmployeeId(long employeeId, long afterId, int limit) throws SQLException;
+
+    /**
+     * Переносит в tasks_archive не больше batchSize задач в одном из statuses, статус которых не менялся
+     * с changedBefore. Выполняется одной транзакцией.
+     *
+     * @return количество перенесённых задач
+     */
+    int archiveTasks(String[] statuses, Timestamp changedBefore, int batchSize) throws SQLException;
+
+    LongHashMap<List<Tasks>> getTasksByEmployeeIds(long[] employeeIds) throws SQLException;
+
+    byte[] getTasksJsonByEmployeeId(long employeeId) throws SQLException;
+
+    Flow.Publisher<Tasks> publishTasksByEmployeeId(long employeeId);
+
 }
@@ -3,26 +3,35 @@ package repository.impl;
 import model.Activity;
 import model.Employee;
 import repository.ActivityRepository;
+import util.ConnectionContext;
 import util.ConnectionManager;
+import util.PropertiesUtil;
+import util.ResultSetPublisher;
+import util.SqlConsumer;
+import util.SqlFunction;
 
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 public class ActivityRepositoryImp implements ActivityRepository {
 
     private static final ActivityRepositoryImp INSTANCE= new ActivityRepositoryImp();
+    private static final int FETCH_SIZE = PropertiesUtil.getInt("db.fetchSize", 500);
 
     private ActivityRepositoryImp() {}
 
     private static final String ADD_ACTIVITY = """
             INSERT INTO activity(name) VALUES (?)
+            RETURNING id, name
             """;
 
     private static final String UPDATE_ACTIVITY = """
             UPDATE activity SET name = ? WHERE id = ?
+            RETURNING id, name
             """;
 
     private  static  final String DELETE_ACTIVITY = """
@@ -30,7 +39,19 @@ public class ActivityRepositoryImp implements ActivityRepository {
             """;
 
     private static final String GET_ACTIVITY_BY_ID = """
-            SELECT * FROM activity WHERE id = ?
+            SELECT id, name FROM activity WHERE id = ?
+            """;
+
+    private static final String GET_ACTIVITIES_BY_IDS = """
+            SELECT id, name FROM activity WHERE id = ANY(?)
+            """;
+
+    private static final String GET_ACTIVITIES = """
+            SELECT id, name FROM activity ORDER BY id
+            """;
+
+    private static final String GET_ACTIVITIES_PAGE = """
+            SELECT id, name FROM activity WHERE id > ? ORDER BY id LIMIT ?
             """;
 
     private static final String GET_ACTIVITIES_WITH_EMPLOYEE =  """
@@ -43,67 +64,82 @@ public class ActivityRepositoryImp implements ActivityRepository {
             FROM activity AS a
             LEFT JOIN employee_activity AS ea ON a.id = ea.activity_id
             LEFT JOIN employee AS e ON ea.employee_id = e.id
-            ORDER BY a.id
+            ORDER BY a.id, e.id
+            """;
+
+    // страница активностей по id, к ней — все их сотрудники
+    private static final String GET_ACTIVITIES_WITH_EMPLOYEE_PAGE = """
+            WITH page AS (
+                SELECT id, name FROM activity WHERE id > ? ORDER BY id LIMIT ?
+            )
+            SELECT  a.id AS activity_id,
+                    a.name AS activity_name,
+                    e.id AS employee_id,
+                    e.emp_firstname AS employee_first_name,
+                    e.emp_lastname AS employee_last_name,
+                    e.position AS employee_position
+            FROM page AS a
+            LEFT JOIN employee_activity AS ea ON a.id = ea.activity_id
+            LEFT JOIN employee AS e ON ea.employee_id = e.id
+            ORDER BY a.id, e.id
+            """;
+
+    // JSON той же формы, что List<ActivityDto> у Jackson (Employee сериализуется со всеми полями)
+    private static final String GET_ACTIVITIES_WITH_EMPLOYEE_JSON = """
+            SELECT '[' || coalesce(string_agg(item, ',' ORDER BY id), '') || ']'
+            FROM (
+                SELECT a.id,
+                       '{"name":' || to_json(a.name)::text || ',"employees":['
+                       || coalesce(string_agg('{"id":' || e.id
+                                              || ',"firstName":' || to_json(e.emp_firstname)::text
+                                              || ',"lastName":' || to_json(e.emp_lastname)::text
+                                              || ',"position":' || to_json(e.position)::text
+                                              || ',"activities":null,"tasks":null}',
+                                              ',' ORDER BY e.id), '')
+                       || ']}' AS item
+                FROM activity AS a
+                LEFT JOIN employee_activity AS ea ON a.id = ea.activity_id
+                LEFT JOIN employee AS e ON ea.employee_id = e.id
+                GROUP BY a.id, a.name
+            ) AS items
             """;
 
     @Override
     public Activity addActivity(Activity activity) throws SQLException {
         Activity newActivity = null;
-        List<Employee> employees = new ArrayList<>();
         try (var connection = ConnectionManager.get();
-             var ps = connection.prepareStatement(ADD_ACTIVITY,
-                     Statement.RETURN_GENERATED_KEYS)) {
+             var ps = connection.prepareStatement(ADD_ACTIVITY)) {
             ps.setString(1, activity.getName());
 
-            int count = ps.executeUpdate();
-            if (count == 0) {
-                throw new SQLException("Activity not added");
-            }
-
-            ResultSet rs = ps.getGeneratedKeys();
-            long activityId = 0;
-            if (rs.next()) {
-                activityId = rs.getLong("id");
-            }
-
-            var ps2 = connection.prepareStatement("SELECT * FROM activity WHERE id = ?");
-            ps2.setLong(1, activityId);
-            try (var resultSet = ps2.executeQuery()) {
-                while (resultSet.next()) {
+            try (var resultSet = ps.executeQuery()) {
+                if (resultSet.next()) {
                     newActivity = buildActivity(resultSet);
                 }
             }
-            ps2.close();
         }
-        if (newActivity != null) {
-            newActivity.setEmployees(employees);
+        if (newActivity == null) {
+            throw new SQLException("Activity not added");
         }
+        newActivity.setEmployees(new ArrayList<>());
         return newActivity;
     }
 
     @Override
     public Activity updateActivity(Activity activity) throws SQLException {
         Activity newActivity = null;
-        List<Employee> employees = new ArrayList<>();
         try (var connection = ConnectionManager.get();
              var ps = connection.prepareStatement(UPDATE_ACTIVITY)) {
 
             ps.setString(1, activity.getName());
             ps.setLong(2, activity.getId());
-            int count = ps.executeUpdate();
-
-            if (count == 0) {
-                throw new SQLException("Activity not updated");
-            }
-
-            var ps1 = connection.prepareStatement("SELECT * FROM activity WHERE id = ?");
-            ps1.setLong(1, activity.getId());
-            try (var resultSet = ps1.executeQuery()) {
-                while (resultSet.next()) {
+            try (var resultSet = ps.executeQuery()) {
+                if (resultSet.next()) {
                     newActivity = buildActivity(resultSet);
                 }
             }
-            ps1.close();
+        }
+        if (newActivity == null) {
+            throw new SQLException("Activity not updated");
         }
         return newActivity;
     }
@@ -140,37 +176,121 @@ public class ActivityRepositoryImp implements ActivityRepository {
         }
     }
 
+    @Override
+    public List<Activity> getActivitiesByIds(List<Long> activityIds) throws SQLException {
+        List<Activity> activities = new ArrayList<>();
+        if (activityIds.isEmpty()) {
+            return activities;
+        }
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_ACTIVITIES_BY_IDS)) {
+            ps.setArray(1, connection.createArrayOf("bigint", activityIds.toArray()));
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    activities.add(buildActivity(resultSet));
+                }
+            }
+        }
+        return activities;
+    }
+
+    @Override
+    public List<Activity> getActivities() throws SQLException {
+        List<Activity> activities = new ArrayList<>();
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_ACTIVITIES);
+             var resultSet = ps.executeQuery()) {
+            while (resultSet.next()) {
+                activities.add(buildActivity(resultSet));
+            }
+        }
+        return activities;
+    }
+
+    @Override
+    public List<Activity> getActivities(long afterId, int limit) throws SQLException {
+        List<Activity> activities = new ArrayList<>(limit);
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_ACTIVITIES_PAGE)) {
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    activities.add(buildActivity(resultSet));
+                }
+            }
+        }
+        return activities;
+    }
+
     @Override
     public Map<Activity, List<Employee>> getActivitiesWithEmployee() throws SQLException {
 
         try (Connection connection = ConnectionManager.get();
              PreparedStatement ps = connection.prepareStatement(GET_ACTIVITIES_WITH_EMPLOYEE);
              ResultSet rs = ps.executeQuery()) {
+            return readActivitiesWithEmployee(rs);
+        }
+    }
 
-            Map<Activity, List<Employee>> activitiesWithEmployees = new HashMap<>();
-
-            while (rs.next()) {
-                long activityId = rs.getLong("activity_id");      // получаем id активности
-                String activityName = rs.getString("activity_name");
+    @Override
+    public Map<Activity, List<Employee>> getActivitiesWithEmployee(long afterId, int limit) throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_ACTIVITIES_WITH_EMPLOYEE_PAGE)) {
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            try (var rs = ps.executeQuery()) {
+                return readActivitiesWithEmployee(rs);
+            }
+        }
+    }
 
-                Activity activity = new Activity(activityId, activityName);
+    @Override
+    public void streamActivitiesWithEmployee(SqlConsumer<Activity> consumer) throws SQLException {
+        // pgjdbc читает порциями по fetchSize только внутри транзакции, иначе забирает весь результат
+        ConnectionContext.inTransaction(() -> {
+            try (var connection = ConnectionManager.get();
+                 var ps = connection.prepareStatement(GET_ACTIVITIES_WITH_EMPLOYEE)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (var rs = ps.executeQuery()) {
+                    readGroups(rs, consumer);
+                }
+            }
+            return null;
+        });
+    }
 
-                List<Employee> employees = activitiesWithEmployees.getOrDefault(activity, new ArrayList<>());
+    private Map<Activity, List<Employee>> readActivitiesWithEmployee(ResultSet rs) throws SQLException {
+        Map<Activity, List<Employee>> activitiesWithEmployees = new LinkedHashMap<>();
+        readGroups(rs, activity -> activitiesWithEmployees.put(activity, activity.getEmployees()));
+        return activitiesWithEmployees;
+    }
 
-                long employeeId = rs.getLong("employee_id");      // получаем id сотрудника
-                String employeeFirstName = rs.getString("employee_first_name");
-                String employeeLastName = rs.getString("employee_last_name");
-                String employeePosition = rs.getString("employee_position");
+    private void readGroups(ResultSet rs, SqlConsumer<Activity> consumer) throws SQLException {
+        GroupReader reader = new GroupReader();
+        Activity activity;
+        while ((activity = reader.apply(rs)) != null) {
+            consumer.accept(activity);
+        }
+    }
 
-                if (employeeId != 0) {  // Проверяем, есть ли сотрудник
-                    Employee employee = new Employee(employeeId, employeeFirstName, employeeLastName, employeePosition);
-                    employees.add(employee);
-                }
+    @Override
+    public Flow.Publisher<Activity> publishActivities() {
+        return new ResultSetPublisher<>(GET_ACTIVITIES, ps -> { }, ResultSetPublisher.rows(this::buildActivity));
+    }
 
-                activitiesWithEmployees.put(activity, employees);
-            }
+    @Override
+    public Flow.Publisher<Activity> publishActivitiesWithEmployee() {
+        return new ResultSetPublisher<>(GET_ACTIVITIES_WITH_EMPLOYEE, ps -> { }, GroupReader::new);
+    }
 
-            return activitiesWithEmployees;
+    @Override
+    public byte[] getActivitiesWithEmployeeJson() throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_ACTIVITIES_WITH_EMPLOYEE_JSON);
+             var resultSet = ps.executeQuery()) {
+            resultSet.next();
+            return resultSet.getBytes(1);
         }
     }
 
@@ -185,6 +305,49 @@ public class ActivityRepositoryImp implements ActivityRepository {
                 rs.getString("name"));
     }
 
+    /**
+     * Читает из упорядоченного по activity_id результата одну активность со всеми её сотрудниками.
+     * Группа готова, как только id сменился; первая строка следующей группы остаётся в pending.
+     */
+    private static final class GroupReader implements SqlFunction<ResultSet, Activity> {
+
+        private Activity pending;
+        private boolean exhausted;
+
+        @Override
+        public Activity apply(ResultSet rs) throws SQLException {
+            Activity current = pending;
+            pending = null;
+            while (!exhausted) {
+                if (!rs.next()) {
+                    exhausted = true;
+                    break;
+                }
+                long activityId = rs.getLong("activity_id");
+                if (current != null && current.getId() != activityId) {
+                    pending = new Activity(activityId, rs.getString("activity_name"), new ArrayList<>());
+                    addEmployee(rs, pending);
+                    return current;
+                }
+                if (current == null) {
+                    current = new Activity(activityId, rs.getString("activity_name"), new ArrayList<>());
+                }
+                addEmployee(rs, current);
+            }
+            return current;
+        }
+
+        private static void addEmployee(ResultSet rs, Activity activity) throws SQLException {
+            long employeeId = rs.getLong("employee_id");
+            if (employeeId != 0) {  // Проверяем, есть ли сотрудник
+                activity.getEmployees().add(new Employee(employeeId,
+                        rs.getString("employee_first_name"),
+                        rs.getString("employee_last_name"),
+                        rs.getString("employee_position")));
+            }
+        }
+    }
+
     public Employee buildEmployee(ResultSet rs) throws SQLException {
         return new Employee(
                 rs.getLong("id"),
@@ -0,0 +1,336 @@
+package repository.impl;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import repository.BulkRepository;
+import util.ConnectionContext;
+import util.ConnectionManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Массовая загрузка через COPY FROM STDIN и выгрузка через COPY TO STDOUT.
+ * Строки сначала копируются во временную таблицу, затем проверки удаляют из неё строки,
+ * которые нарушили бы ограничения (DELETE ... RETURNING line), и остаток вставляется одним INSERT ... SELECT.
+ * Всё выполняется в одной транзакции: либо загружены все прошедшие проверки строки, либо ничего.
+ */
+public class BulkRepositoryImp implements BulkRepository {
+
+    private static final BulkRepositoryImp INSTANCE = new BulkRepositoryImp();
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private BulkRepositoryImp() {}
+
+    private static final String CREATE_IMPORT_EMPLOYEE = """
+            CREATE TEMP TABLE import_employee (
+                line BIGINT,
+                id BIGINT,
+                emp_firstname VARCHAR(255),
+                emp_lastname VARCHAR(255),
+                position VARCHAR(255)
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_IMPORT_EMPLOYEE = """
+            COPY import_employee (line, id, emp_firstname, emp_lastname, position) FROM STDIN (FORMAT csv)
+            """;
+
+    private static final Check[] EMPLOYEE_CHECKS = {
+            new Check("""
+                    DELETE FROM import_employee AS s USING import_employee AS d
+                    WHERE s.id = d.id AND s.line > d.line
+                    RETURNING s.line
+                    """, "Duplicate employee id"),
+            new Check("""
+                    DELETE FROM import_employee AS s
+                    WHERE EXISTS (SELECT 1 FROM employee AS e WHERE e.id = s.id)
+                    RETURNING s.line
+                    """, "Employee already exists")
+    };
+
+    private static final String INSERT_EMPLOYEES = """
+            INSERT INTO employee (id, emp_firstname, emp_lastname, position)
+            SELECT coalesce(id, nextval(pg_get_serial_sequence('employee', 'id'))), emp_firstname, emp_lastname, position
+            FROM import_employee
+            ORDER BY line
+            """;
+
+    // до вставки: иначе nextval для строки без id может выдать id, явно указанный в той же загрузке.
+    // Последовательность только сдвигается вперёд — на неё же опираются параллельные вставки
+    private static final String SYNC_EMPLOYEE_SEQUENCE = """
+            SELECT setval(pg_get_serial_sequence('employee', 'id'),
+                          greatest((SELECT max(id) FROM employee),
+                                   (SELECT max(id) FROM import_employee),
+                                   pg_sequence_last_value(pg_get_serial_sequence('employee', 'id')::regclass)))
+            WHERE EXISTS (SELECT 1 FROM import_employee WHERE id IS NOT NULL)
+            """;
+
+    private static final String CREATE_IMPORT_TASKS = """
+            CREATE TEMP TABLE import_tasks (
+                line BIGINT,
+                title VARCHAR(255),
+                status VARCHAR(64),
+                employee_id BIGINT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_IMPORT_TASKS = """
+            COPY import_tasks (line, title, status, employee_id) FROM STDIN (FORMAT csv)
+            """;
+
+    private static final Check[] TASKS_CHECKS = {
+            new Check("""
+                    DELETE FROM import_tasks AS s
+                    WHERE NOT EXISTS (SELECT 1 FROM employee AS e WHERE e.id = s.employee_id)
+                    RETURNING s.line
+                    """, "Employee not found")
+    };
+
+    // новые статусы попадают в справочник в той же транзакции, что и задачи.
+    // Только отсутствующие: INSERT берёт nextval до проверки конфликта, а id статуса — SMALLINT.
+    // ON CONFLICT — на случай статуса, добавленного параллельно
+    private static final String ADD_TASK_STATUSES = """
+            INSERT INTO task_status (name)
+            SELECT DISTINCT i.status FROM import_tasks AS i
+            WHERE i.status IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM task_status AS s WHERE s.name = i.status)
+            ON CONFLICT (name) DO NOTHING
+            """;
+
+    private static final String INSERT_TASKS = """
+            INSERT INTO tasks (title, status_id, employee_id)
+            SELECT i.title, s.id, i.employee_id
+            FROM import_tasks AS i
+            LEFT JOIN task_status AS s ON s.name = i.status
+            ORDER BY i.line
+            """;
+
+    private static final String CREATE_IMPORT_EMPLOYEE_ACTIVITY = """
+            CREATE TEMP TABLE import_employee_activity (
+                line BIGINT,
+                employee_id BIGINT,
+                activity_id BIGINT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_IMPORT_EMPLOYEE_ACTIVITY = """
+            COPY import_employee_activity (line, employee_id, activity_id) FROM STDIN (FORMAT csv)
+            """;
+
+    private static final Check[] EMPLOYEE_ACTIVITY_CHECKS = {
+            new Check("""
+                    DELETE FROM import_employee_activity AS s
+                    WHERE NOT EXISTS (SELECT 1 FROM employee AS e WHERE e.id = s.employee_id)
+                    RETURNING s.line
+                    """, "Employee not found"),
+            new Check("""
+                    DELETE FROM import_employee_activity AS s
+                    WHERE NOT EXISTS (SELECT 1 FROM activity AS a WHERE a.id = s.activity_id)
+                    RETURNING s.line
+                    """, "Activity not found"),
+            new Check("""
+                    DELETE FROM import_employee_activity AS s USING import_employee_activity AS d
+                    WHERE s.employee_id = d.employee_id AND s.activity_id = d.activity_id AND s.line > d.line
+                    RETURNING s.line
+                    """, "Duplicate employee and activity"),
+            new Check("""
+                    DELETE FROM import_employee_activity AS s
+                    WHERE EXISTS (SELECT 1 FROM employee_activity AS ea
+                                  WHERE ea.employee_id = s.employee_id AND ea.activity_id = s.activity_id)
+                    RETURNING s.line
+                    """, "Employee and activity already linked")
+    };
+
+    // ON CONFLICT — на случай связи, добавленной параллельно после проверки
+    private static final String INSERT_EMPLOYEE_ACTIVITIES = """
+            INSERT INTO employee_activity (employee_id, activity_id)
+            SELECT employee_id, activity_id
+            FROM import_employee_activity
+            ORDER BY line
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final Map<String, ExportSpec> EXPORTS = Map.of(
+            "employee", new ExportSpec("employee", "id",
+                    "id, emp_firstname AS \"firstName\", emp_lastname AS \"lastName\", position", "id"),
+            "task", new ExportSpec("tasks", "id",
+                    "id, title, (SELECT s.name FROM task_status AS s WHERE s.id = status_id) AS status,"
+                    + " employee_id AS \"employeeId\"", "id"),
+            "employee-activity", new ExportSpec("employee_activity", "employee_id",
+                    "employee_id AS \"employeeId\", activity_id AS \"activityId\"", "employee_id, activity_id"));
+
+    private static final String EXPORT_SNAPSHOT = """
+            SELECT pg_export_snapshot()
+            """;
+
+    private static final String REPEATABLE_READ = "SET TRANSACTION ISOLATION LEVEL REPEATABLE READ";
+
+    @Override
+    public long importEmployees(CopySource source, RejectHandler rejected) throws SQLException, IOException {
+        return importRows(CREATE_IMPORT_EMPLOYEE, COPY_IMPORT_EMPLOYEE, EMPLOYEE_CHECKS,
+                SYNC_EMPLOYEE_SEQUENCE, INSERT_EMPLOYEES, source, rejected);
+    }
+
+    @Override
+    public long importTasks(CopySource source, RejectHandler rejected) throws SQLException, IOException {
+        return importRows(CREATE_IMPORT_TASKS, COPY_IMPORT_TASKS, TASKS_CHECKS,
+                ADD_TASK_STATUSES, INSERT_TASKS, source, rejected);
+    }
+
+    @Override
+    public long importEmployeeActivities(CopySource source, RejectHandler rejected) throws SQLException, IOException {
+        return importRows(CREATE_IMPORT_EMPLOYEE_ACTIVITY, COPY_IMPORT_EMPLOYEE_ACTIVITY, EMPLOYEE_ACTIVITY_CHECKS,
+                null, INSERT_EMPLOYEE_ACTIVITIES, source, rejected);
+    }
+
+    @Override
+    public long[] getExportRange(String entity) throws SQLException {
+        ExportSpec spec = exportSpec(entity);
+        try (var connection = ConnectionManager.get();
+             var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(
+                     "SELECT min(" + spec.key + "), max(" + spec.key + ") FROM " + spec.table)) {
+            resultSet.next();
+            long min = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                return null;
+            }
+            return new long[]{min, resultSet.getLong(2)};
+        }
+    }
+
+    @Override
+    public String exportSnapshot() throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(EXPORT_SNAPSHOT);
+             var resultSet = ps.executeQuery()) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    @Override
+    public long export(String entity, boolean csv, boolean header, long fromId, long toId, String snapshot,
+                       OutputStream out) throws SQLException, IOException {
+        ExportSpec spec = exportSpec(entity);
+        // COPY не принимает параметры; в текст попадают только числа и имена из EXPORTS
+        String select = "SELECT " + spec.columns + " FROM " + spec.table
+                        + " WHERE " + spec.key + " BETWEEN " + fromId + " AND " + toId
+                        + " ORDER BY " + spec.order;
+        String copy = csv
+                ? "COPY (" + select + ") TO STDOUT (FORMAT csv" + (header ? ", HEADER" : "") + ")"
+                // одна колонка без кавычек и разделителей: строка JSON выводится как есть
+                : "COPY (SELECT row_to_json(r) FROM (" + select + ") AS r) TO STDOUT"
+                  + " (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+        if (snapshot == null) {
+            try (var connection = ConnectionManager.get()) {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copy, out);
+            }
+        }
+        try (var connection = ConnectionManager.get()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (var statement = connection.createStatement()) {
+                statement.execute(REPEATABLE_READ);
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot.replace("'", "''") + "'");
+            }
+            long rows = connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copy, out);
+            connection.commit();
+            return rows;
+        }
+    }
+
+    public static BulkRepositoryImp getInstance() {
+        return INSTANCE;
+    }
+
+    private long importRows(String createStaging, String copy, Check[] checks, String beforeInsert, String insert,
+                            CopySource source, RejectHandler rejected) throws SQLException, IOException {
+        try {
+            return ConnectionContext.inTransaction(() -> {
+                try (var connection = ConnectionManager.get()) {
+                    try (var statement = connection.createStatement()) {
+                        statement.execute(createStaging);
+                    }
+                    copyIn(connection, copy, source);
+                    for (Check check : checks) {
+                        try (var statement = connection.createStatement();
+                             var resultSet = statement.executeQuery(check.sql)) {
+                            while (resultSet.next()) {
+                                rejected.reject(resultSet.getLong(1), check.message);
+                            }
+                        }
+                    }
+                    try (var statement = connection.createStatement()) {
+                        if (beforeInsert != null) {
+                            statement.execute(beforeInsert);
+                        }
+                        return statement.executeLargeUpdate(insert);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void copyIn(Connection connection, String copy, CopySource source) throws SQLException {
+        PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), copy, COPY_BUFFER_SIZE);
+        try {
+            Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+            source.writeTo(csv);
+            csv.flush();
+        } catch (IOException | RuntimeException e) {
+            // close() завершил бы COPY успешно — отменяем, чтобы соединение вышло из режима копирования
+            if (out.isActive()) {
+                out.cancelCopy();
+            }
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+        out.endCopy();
+    }
+
+    private static ExportSpec exportSpec(String entity) {
+        ExportSpec spec = EXPORTS.get(entity);
+        if (spec == null) {
+            throw new IllegalArgumentException("Unknown export " + entity);
+        }
+        return spec;
+    }
+
+    private static final class ExportSpec {
+
+        private final String table;
+        private final String key;
+        private final String columns;
+        private final String order;
+
+        private ExportSpec(String table, String key, String columns, String order) {
+            this.table = table;
+            this.key = key;
+            this.columns = columns;
+            this.order = order;
+        }
+    }
+
+    private static final class Check {
+
+        private final String sql;
+        private final String message;
+
+        private Check(String sql, String message) {
+            this.sql = sql;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package repository.impl;
+
+import model.Activity;
+import model.Employee;
+import repository.ActivityRepository;
+import util.ConnectionContext;
+import util.LongHashMap;
+import util.PropertiesUtil;
+import util.SqlConsumer;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Кеш активностей по id перед {@link ActivityRepository}: чтение по id идёт в базу только при промахе,
+ * запись через этот репозиторий сбрасывает запись кеша. Изменения в обход приложения
+ * (другой экземпляр, ручной SQL) видны не позже чем через TTL.
+ * Значение, прочитанное в уже начатом снимке запроса (REPEATABLE READ из ConnectionContext), в кеш не кладётся:
+ * снимок мог быть сделан до записи, после которой сдвинулось поколение, и старое имя прожило бы весь TTL.
+ * Кешируются только загрузки, с которых снимок начинается, или вне транзакции.
+ * Списки и выборки с сотрудниками не кешируются и идут напрямую.
+ * Наружу отдаются копии: вызывающий код меняет Activity (например, setEmployees).
+ */
+public class CachingActivityRepository implements ActivityRepository {
+
+    private static final CachingActivityRepository INSTANCE = new CachingActivityRepository(
+            ActivityRepositoryImp.getInstance(),
+            PropertiesUtil.getLong("cache.activity.ttlMs", 60_000L),
+            PropertiesUtil.getInt("cache.activity.maxSize", 10_000),
+            System::nanoTime);
+
+    private final ActivityRepository delegate;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongHashMap<Entry> entries;
+    // растёт при каждом сбросе: значение, прочитанное до сброса, в кеш уже не попадёт
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingActivityRepository(ActivityRepository delegate, long ttlMs, int maxSize, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxSize = maxSize;
+        this.clock = nanoClock;
+        this.entries = new LongHashMap<>(Math.min(maxSize, 1_024));
+    }
+
+    public static CachingActivityRepository getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public Activity addActivity(Activity activity) throws SQLException {
+        Activity added = delegate.addActivity(activity);
+        if (added.getId() != null) {
+            invalidate(added.getId());
+        }
+        return added;
+    }
+
+    @Override
+    public Activity updateActivity(Activity activity) throws SQLException {
+        try {
+            return delegate.updateActivity(activity);
+        } finally {
+            invalidate(activity.getId());
+        }
+    }
+
+    @Override
+    public void deleteActivity(long activityId) throws SQLException {
+        try {
+            delegate.deleteActivity(activityId);
+        } finally {
+            invalidate(activityId);
+        }
+    }
+
+    @Override
+    public Activity getActivityById(long activityId) throws SQLException {
+        Entry entry = lookup(activityId);
+        if (entry != null) {
+            return entry.toActivity();
+        }
+        boolean cacheable = !ConnectionContext.isSnapshotTaken();
+        long loadGeneration = generation.get();
+        Activity activity = delegate.getActivityById(activityId);
+        if (cacheable) {
+            store(activity, loadGeneration);
+        }
+        return activity;
+    }
+
+    @Override
+    public List<Activity> getActivitiesByIds(List<Long> activityIds) throws SQLException {
+        List<Activity> activities = new ArrayList<>(activityIds.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : activityIds) {
+            Entry entry = lookup(id);
+            if (entry != null) {
+                activities.add(entry.toActivity());
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return activities;
+        }
+        boolean cacheable = !ConnectionContext.isSnapshotTaken();
+        long loadGeneration = generation.get();
+        for (Activity activity : delegate.getActivitiesByIds(missing)) {
+            if (cacheable) {
+                store(activity, loadGeneration);
+            }
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    @Override
+    public List<Activity> getActivities() throws SQLException {
+        return delegate.getActivities();
+    }
+
+    @Override
+    public List<Activity> getActivities(long afterId, int limit) throws SQLException {
+        return delegate.getActivities(afterId, limit);
+    }
+
+    @Override
+    public Map<Activity, List<Employee>> getActivitiesWithEmployee() throws SQLException {
+        return delegate.getActivitiesWithEmployee();
+    }
+
+    @Override
+    public Map<Activity, List<Employee>> getActivitiesWithEmployee(long afterId, int limit) throws SQLException {
+        return delegate.getActivitiesWithEmployee(afterId, limit);
+    }
+
+    @Override
+    public void streamActivitiesWithEmployee(SqlConsumer<Activity> consumer) throws SQLException {
+        delegate.streamActivitiesWithEmployee(consumer);
+    }
+
+    @Override
+    public byte[] getActivitiesWithEmployeeJson() throws SQLException {
+        return delegate.getActivitiesWithEmployeeJson();
+    }
+
+    @Override
+    public Flow.Publisher<Activity> publishActivities() {
+        return delegate.publishActivities();
+    }
+
+    @Override
+    public Flow.Publisher<Activity> publishActivitiesWithEmployee() {
+        return delegate.publishActivitiesWithEmployee();
+    }
+
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            entries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingActivityRepository{" +
+                "size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private Entry lookup(long id) {
+        Entry entry;
+        lock.readLock().lock();
+        try {
+            entry = entries.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (entry != null && entry.expiresAt - clock.getAsLong() > 0) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void store(Activity activity, long loadGeneration) {
+        long now = clock.getAsLong();
+        Entry entry = new Entry(activity.getId(), activity.getName(), now + ttlNanos);
+        lock.writeLock().lock();
+        try {
+            if (generation.get() != loadGeneration) {
+                return;
+            }
+            if (entries.size() >= maxSize && !entries.containsKey(entry.id)) {
+                removeExpired(now);
+                if (entries.size() >= maxSize) {
+                    return;
+                }
+            }
+            entries.put(entry.id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // вызывается под блокировкой записи
+    private void removeExpired(long now) {
+        List<Long> expired = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (entry.expiresAt - now <= 0) {
+                expired.add(id);
+            }
+        });
+        for (long id : expired) {
+            entries.remove(id);
+        }
+        evictions.add(expired.size());
+    }
+
+    private void invalidate(long id) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            if (entries.remove(id) != null) {
+                evictions.increment();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final String name;
+        private final long expiresAt;
+
+        private Entry(long id, String name, long expiresAt) {
+            this.id = id;
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+
+        private Activity toActivity() {
+            return new Activity(id, name);
+        }
+    }
+}
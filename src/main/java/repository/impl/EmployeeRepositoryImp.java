@@ -2,25 +2,42 @@ package repository.impl;
 
 import model.Activity;
 import model.Employee;
+import model.Tasks;
 import repository.EmployeeRepository;
+import repository.TaskStatusRepository;
+import util.ConnectionContext;
 import util.ConnectionManager;
+import util.PropertiesUtil;
+import util.ResultSetPublisher;
+import util.SqlConsumer;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 public class EmployeeRepositoryImp implements EmployeeRepository {
 
     private static final EmployeeRepositoryImp INSTANCE= new EmployeeRepositoryImp();
+    private static final int FETCH_SIZE = PropertiesUtil.getInt("db.fetchSize", 500);
+
+    private final TaskStatusRepository taskStatusRepository = TaskStatusRepositoryImp.getInstance();
 
     private EmployeeRepositoryImp() {}
 
     private static final String ADD_EMPLOYEE = """
             INSERT INTO employee(emp_firstname, emp_lastname, position) VALUES (?,?,?)
+            RETURNING id, emp_firstname, emp_lastname, position
             """;
 
     private  static final String UPDATE_EMPLOYEE = """
              UPDATE employee SET emp_firstname = ?, emp_lastname = ?, position = ? WHERE id = ?
+             RETURNING id, emp_firstname, emp_lastname, position
+            """;
+
+    private static final String ADD_EMPLOYEE_ACTIVITIES = """
+            INSERT INTO employee_activity (employee_id, activity_id)
+            SELECT ?, activity_id FROM unnest(?::bigint[]) AS activity_id
             """;
 
     private static final String DELETE_EMPLOYEE = """
@@ -28,67 +45,138 @@ public class EmployeeRepositoryImp implements EmployeeRepository {
             """;
 
     private static final String GET_EMPLOYEE_BY_ID = """
-            SELECT * FROM employee WHERE id = ?
+            SELECT id, emp_firstname, emp_lastname, position FROM employee WHERE id = ?
+            """;
+
+    private static final String ACTIVITIES_JOIN = """
+            LEFT JOIN LATERAL (
+                SELECT array_agg(ac.id ORDER BY ac.id) AS activity_ids,
+                       array_agg(ac.name ORDER BY ac.id) AS activity_names
+                FROM employee_activity AS ea
+                JOIN activity AS ac ON ac.id = ea.activity_id
+                WHERE ea.employee_id = e.id
+            ) AS a ON true
+            """;
+
+    private static final String TASKS_JOIN = """
+            LEFT JOIN LATERAL (
+                SELECT array_agg(ts.id ORDER BY ts.id) AS task_ids,
+                       array_agg(ts.title ORDER BY ts.id) AS task_titles,
+                       array_agg(ts.status_id ORDER BY ts.id) AS task_status_ids
+                FROM tasks AS ts
+                WHERE ts.employee_id = e.id
+            ) AS t ON true
+            """;
+
+    // связи, которые клиент не запросил, в запрос не попадают вовсе
+    private static final String GET_EMPLOYEE_WITH_DETAILS = """
+            SELECT e.id, e.emp_firstname, e.emp_lastname, e.position,
+                   a.activity_ids, a.activity_names,
+                   t.task_ids, t.task_titles, t.task_status_ids
+            FROM employee AS e
+            """ + ACTIVITIES_JOIN + TASKS_JOIN + """
+            WHERE e.id = ?
+            """;
+
+    private static final String GET_EMPLOYEE_WITH_ACTIVITIES = """
+            SELECT e.id, e.emp_firstname, e.emp_lastname, e.position,
+                   a.activity_ids, a.activity_names
+            FROM employee AS e
+            """ + ACTIVITIES_JOIN + """
+            WHERE e.id = ?
+            """;
+
+    private static final String GET_EMPLOYEE_WITH_TASKS = """
+            SELECT e.id, e.emp_firstname, e.emp_lastname, e.position,
+                   t.task_ids, t.task_titles, t.task_status_ids
+            FROM employee AS e
+            """ + TASKS_JOIN + """
+            WHERE e.id = ?
+            """;
+
+    // JSON той же формы и с тем же порядком полей, что EmployeeDto у Jackson
+    private static final String GET_EMPLOYEE_JSON = """
+            SELECT '{"firstName":' || to_json(e.emp_firstname)::text
+                || ',"lastName":' || to_json(e.emp_lastname)::text
+                || ',"position":' || to_json(e.position)::text
+                || ',"activity":[' || coalesce(a.ids, '') || ']'
+                || ',"tasks":[' || coalesce(t.items, '') || ']}'
+            FROM employee AS e
+            LEFT JOIN LATERAL (
+                SELECT string_agg(ac.id::text, ',' ORDER BY ac.id) AS ids
+                FROM employee_activity AS ea
+                JOIN activity AS ac ON ac.id = ea.activity_id
+                WHERE ea.employee_id = e.id
+            ) AS a ON true
+            LEFT JOIN LATERAL (
+                SELECT string_agg('{"firstName":' || to_json(e.emp_firstname)::text
+                                  || ',"lastName":' || to_json(e.emp_lastname)::text
+                                  || ',"title":' || to_json(ts.title)::text
+                                  || ',"status":' || coalesce(to_json(s.name)::text, 'null') || '}',
+                                  ',' ORDER BY ts.id) AS items
+                FROM tasks AS ts
+                LEFT JOIN task_status AS s ON s.id = ts.status_id
+                WHERE ts.employee_id = e.id
+            ) AS t ON true
+            WHERE e.id = ?
             """;
 
     private static final String FIND_ACTIVITY_BY_EMPLOYEE_ID = """
-            SELECT * FROM activity WHERE id IN 
+            SELECT id, name FROM activity WHERE id IN
            (SELECT ea.activity_id FROM employee_activity AS ea WHERE ea.employee_id = ?)
             """;
 
     private static final String GET_EMPLOYEES_BY_ACTIVITY_ID = """
-            SELECT * FROM employee WHERE id IN
+            SELECT id, emp_firstname, emp_lastname, position FROM employee WHERE id IN
            (SELECT ea.employee_id FROM employee_activity AS ea WHERE ea.activity_id = ?)
+            ORDER BY id
+            """;
+
+    private static final String GET_EMPLOYEES_WITH_TASKS_BY_ACTIVITY_ID = """
+            SELECT e.id, e.emp_firstname, e.emp_lastname, e.position,
+                   t.id AS task_id, t.title, t.status_id
+            FROM employee_activity AS ea
+            JOIN employee AS e ON e.id = ea.employee_id
+            LEFT JOIN tasks AS t ON t.employee_id = e.id
+            WHERE ea.activity_id = ?
+            ORDER BY e.id, t.id
             """;
 
     @Override
     public Employee addEmployee(Employee employee, List<Long> activityList) throws SQLException {
         Employee newEmployee = null;
         try (var connection = ConnectionManager.get();
-             var ps = connection.prepareStatement(ADD_EMPLOYEE,
-             Statement.RETURN_GENERATED_KEYS)) {
+             var ps = connection.prepareStatement(ADD_EMPLOYEE)) {
             ps.setString(1, employee.getFirstName());
             ps.setString(2, employee.getLastName());
             ps.setString(3, employee.getPosition());
 
-            int count = ps.executeUpdate();
-            if(count == 0) {
-                throw new SQLException("Employee not added");
-            }
-
-            ResultSet rs = ps.getGeneratedKeys();
-            long employeeId = 0;
-            while (rs.next()) {
-                employeeId = rs.getLong("id");
-            }
-
-            for (Long activityId : activityList) {
-                var ps1 = connection.prepareStatement("INSERT INTO employee_activity" +
-                        " (employee_id, activity_id) VALUES (?,?)");
-                ps1.setLong(1, employeeId);
-                ps1.setLong(2, activityId);
-                int countRow = ps1.executeUpdate();
-                if(countRow == 0) {
-                    throw new SQLException("Employee and activity not added");
+            try (var resultSet = ps.executeQuery()) {
+                if (resultSet.next()) {
+                    newEmployee = buildEmployee(resultSet);
                 }
-                ps1.close();
+            }
+            if (newEmployee == null) {
+                throw new SQLException("Employee not added");
             }
 
-            var ps2 = connection.prepareStatement("SELECT * FROM employee WHERE id = ? ");
-
-            ps2.setLong(1, employeeId);
-            try (var resultSet = ps2.executeQuery()) {
-                while (resultSet.next()){
-                    newEmployee = buildEmployee(resultSet);
+            if (!activityList.isEmpty()) {
+                try (var ps1 = connection.prepareStatement(ADD_EMPLOYEE_ACTIVITIES)) {
+                    ps1.setLong(1, newEmployee.getId());
+                    ps1.setArray(2, connection.createArrayOf("bigint", activityList.toArray()));
+                    int countRow = ps1.executeUpdate();
+                    if (countRow != activityList.size()) {
+                        throw new SQLException("Employee and activity not added");
+                    }
                 }
             }
-            ps2.close();
         }
         return newEmployee;
     }
 
     @Override
     public Employee updateEmployee(Employee employee) throws SQLException {
+        Employee updatedEmployee = null;
         try (var connection = ConnectionManager.get();
              var ps = connection.prepareStatement(UPDATE_EMPLOYEE)) {
 
@@ -96,23 +184,16 @@ public class EmployeeRepositoryImp implements EmployeeRepository {
             ps.setString(2, employee.getLastName());
             ps.setString(3, employee.getPosition());
             ps.setLong(4, employee.getId());
-            int count = ps.executeUpdate();
-
-            if (count == 0) {
-                throw new SQLException("Employee not updated");
-            }
-
-            var ps1 = connection.prepareStatement("SELECT * FROM employee WHERE id = ? ");
-
-            ps1.setLong(1, employee.getId());
-            try (var resultSet = ps1.executeQuery()) {
-                while (resultSet.next()){
-                    employee = buildEmployee(resultSet);
+            try (var resultSet = ps.executeQuery()) {
+                if (resultSet.next()) {
+                    updatedEmployee = buildEmployee(resultSet);
                 }
             }
-            ps1.close();
         }
-        return employee;
+        if (updatedEmployee == null) {
+            throw new SQLException("Employee not updated");
+        }
+        return updatedEmployee;
     }
 
     @Override
@@ -147,6 +228,52 @@ public class EmployeeRepositoryImp implements EmployeeRepository {
         }
     }
 
+    @Override
+    public Employee getEmployeeWithDetails(long employeeId) throws SQLException {
+        return getEmployeeWithDetails(employeeId, true, true);
+    }
+
+    @Override
+    public Employee getEmployeeWithDetails(long employeeId, boolean withActivities, boolean withTasks)
+            throws SQLException {
+        if (!withActivities && !withTasks) {
+            return getEmployeeById(employeeId);
+        }
+        String sql = withActivities && withTasks ? GET_EMPLOYEE_WITH_DETAILS
+                : withActivities ? GET_EMPLOYEE_WITH_ACTIVITIES : GET_EMPLOYEE_WITH_TASKS;
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(sql)) {
+            ps.setLong(1, employeeId);
+            try (var resultSet = ps.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Employee not found");
+                }
+                Employee employee = buildEmployee(resultSet);
+                if (withActivities) {
+                    employee.setActivities(buildActivities(resultSet));
+                }
+                if (withTasks) {
+                    employee.setTasks(buildTasks(resultSet, employee));
+                }
+                return employee;
+            }
+        }
+    }
+
+    @Override
+    public byte[] getEmployeeJson(long employeeId) throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_EMPLOYEE_JSON)) {
+            ps.setLong(1, employeeId);
+            try (var resultSet = ps.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Employee not found");
+                }
+                return resultSet.getBytes(1);
+            }
+        }
+    }
+
     @Override
     public List<Activity> findActivityByEmployeeId(long employeeId) throws SQLException {
         List<Activity> activities = new ArrayList<>();
@@ -182,6 +309,54 @@ public class EmployeeRepositoryImp implements EmployeeRepository {
         return employees;
     }
 
+    @Override
+    public void streamEmployeesWithTasksByActivityId(long activityId, SqlConsumer<Employee> consumer)
+            throws SQLException {
+        // pgjdbc читает порциями по fetchSize только внутри транзакции
+        ConnectionContext.inTransaction(() -> {
+            try (var connection = ConnectionManager.get();
+                 var ps = connection.prepareStatement(GET_EMPLOYEES_WITH_TASKS_BY_ACTIVITY_ID)) {
+                ps.setLong(1, activityId);
+                ps.setFetchSize(FETCH_SIZE);
+                try (var resultSet = ps.executeQuery()) {
+                    Employee current = null;
+                    while (resultSet.next()) {
+                        long employeeId = resultSet.getLong("id");
+                        // строки упорядочены по сотруднику: он готов, как только id сменился
+                        if (current == null || current.getId() != employeeId) {
+                            if (current != null) {
+                                consumer.accept(current);
+                            }
+                            current = buildEmployee(resultSet);
+                            current.setTasks(new ArrayList<>());
+                        }
+                        long taskId = resultSet.getLong("task_id");
+                        if (taskId != 0) {
+                            current.getTasks().add(new Tasks(taskId, resultSet.getString("title"),
+                                    taskStatusRepository.getName(resultSet.getShort("status_id")), current));
+                        }
+                    }
+                    if (current != null) {
+                        consumer.accept(current);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Flow.Publisher<Employee> publishEmployeesByActivityId(long activityId) {
+        return new ResultSetPublisher<>(GET_EMPLOYEES_BY_ACTIVITY_ID, ps -> ps.setLong(1, activityId),
+                ResultSetPublisher.rows(this::buildEmployee));
+    }
+
+    @Override
+    public Flow.Publisher<Activity> publishActivitiesByEmployeeId(long employeeId) {
+        return new ResultSetPublisher<>(FIND_ACTIVITY_BY_EMPLOYEE_ID, ps -> ps.setLong(1, employeeId),
+                ResultSetPublisher.rows(this::buildActivity));
+    }
+
     public static EmployeeRepositoryImp getInstance() {
         return INSTANCE;
     }
@@ -195,6 +370,36 @@ public class EmployeeRepositoryImp implements EmployeeRepository {
         );
     }
 
+    private List<Activity> buildActivities(ResultSet rs) throws SQLException {
+        List<Activity> activities = new ArrayList<>();
+        Array ids = rs.getArray("activity_ids");
+        if (ids == null) {
+            return activities;
+        }
+        Long[] activityIds = (Long[]) ids.getArray();
+        String[] names = (String[]) rs.getArray("activity_names").getArray();
+        for (int i = 0; i < activityIds.length; i++) {
+            activities.add(new Activity(activityIds[i], names[i]));
+        }
+        return activities;
+    }
+
+    private List<Tasks> buildTasks(ResultSet rs, Employee employee) throws SQLException {
+        List<Tasks> tasks = new ArrayList<>();
+        Array ids = rs.getArray("task_ids");
+        if (ids == null) {
+            return tasks;
+        }
+        Long[] taskIds = (Long[]) ids.getArray();
+        String[] titles = (String[]) rs.getArray("task_titles").getArray();
+        Short[] statusIds = (Short[]) rs.getArray("task_status_ids").getArray();
+        for (int i = 0; i < taskIds.length; i++) {
+            String status = statusIds[i] == null ? null : taskStatusRepository.getName(statusIds[i]);
+            tasks.add(new Tasks(taskIds[i], titles[i], status, employee));
+        }
+        return tasks;
+    }
+
     private Activity buildActivity(ResultSet rs) throws SQLException {
         return new Activity(
                 rs.getLong("id"),
@@ -0,0 +1,133 @@
+package repository.impl;
+
+import repository.TaskStatusRepository;
+import util.ConnectionManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Статусов единицы, поэтому справочник хранится неизменяемым снимком и целиком перечитывается,
+ * когда встречается неизвестный код или название (например, добавленные другим экземпляром).
+ * Запросы идут на отдельном соединении из пула в автокоммите: новый статус фиксируется сразу
+ * и не пропадает из базы, если транзакция запроса откатится, а в кеше он уже есть.
+ * Из-за неизвестного названия (например, опечатки в ?status=) справочник перечитывается
+ * не чаще раза в секунду, остальные такие запросы сразу получают «не найдено».
+ */
+public class TaskStatusRepositoryImp implements TaskStatusRepository {
+
+    private static final TaskStatusRepositoryImp INSTANCE = new TaskStatusRepositoryImp();
+
+    private static final String GET_ALL = """
+            SELECT id, name FROM task_status
+            """;
+
+    private static final String ADD_STATUS = """
+            INSERT INTO task_status (name) VALUES (?) ON CONFLICT (name) DO NOTHING
+            """;
+
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong lastMissReload = new AtomicLong(System.nanoTime() - MISS_RELOAD_INTERVAL_NANOS);
+    private volatile Snapshot snapshot = new Snapshot(new String[0], Map.of());
+
+    private TaskStatusRepositoryImp() {
+    }
+
+    @Override
+    public synchronized void load() throws SQLException {
+        Map<String, Short> ids = new HashMap<>();
+        int maxId = 0;
+        try (Connection connection = ConnectionManager.getPool().borrow();
+             var statement = connection.createStatement();
+             var rs = statement.executeQuery(GET_ALL)) {
+            while (rs.next()) {
+                short id = rs.getShort("id");
+                ids.put(rs.getString("name"), id);
+                maxId = Math.max(maxId, id);
+            }
+        }
+        String[] names = new String[maxId + 1];
+        // ключ карты и элемент массива — один и тот же экземпляр
+        ids.forEach((name, id) -> names[id] = name);
+        snapshot = new Snapshot(names, Map.copyOf(ids));
+    }
+
+    @Override
+    public String getName(short id) throws SQLException {
+        if (id == 0) {
+            return null;
+        }
+        String name = snapshot.name(id);
+        if (name == null) {
+            load();
+            name = snapshot.name(id);
+            if (name == null) {
+                throw new SQLException("Unknown task status " + id);
+            }
+        }
+        return name;
+    }
+
+    @Override
+    public Short findId(String name) throws SQLException {
+        if (name == null) {
+            return null;
+        }
+        Short id = snapshot.ids.get(name);
+        if (id == null && reloadOnMissAllowed()) {
+            load();
+            id = snapshot.ids.get(name);
+        }
+        return id;
+    }
+
+    // перечитывает только один вызов за интервал, остальные не ждут блокировку load()
+    private boolean reloadOnMissAllowed() {
+        long now = System.nanoTime();
+        long last = lastMissReload.get();
+        return now - last >= MISS_RELOAD_INTERVAL_NANOS && lastMissReload.compareAndSet(last, now);
+    }
+
+    @Override
+    public Short getOrCreateId(String name) throws SQLException {
+        Short id = findId(name);
+        if (id != null || name == null) {
+            return id;
+        }
+        try (Connection connection = ConnectionManager.getPool().borrow();
+             var ps = connection.prepareStatement(ADD_STATUS)) {
+            ps.setString(1, name);
+            ps.executeUpdate();
+        }
+        load();
+        id = snapshot.ids.get(name);
+        if (id == null) {
+            throw new SQLException("Task status not added");
+        }
+        return id;
+    }
+
+    public static TaskStatusRepositoryImp getInstance() {
+        return INSTANCE;
+    }
+
+    private static final class Snapshot {
+
+        private final String[] names;
+        private final Map<String, Short> ids;
+
+        private Snapshot(String[] names, Map<String, Short> ids) {
+            this.names = names;
+            this.ids = ids;
+        }
+
+        private String name(short id) {
+            return id > 0 && id < names.length ? names[id] : null;
+        }
+    }
+}
@@ -1,25 +1,36 @@
 package repository.impl;
 
+import model.Employee;
 import model.Tasks;
+import repository.TaskStatusRepository;
 import repository.TasksRepository;
 import util.ConnectionManager;
+import util.LongHashMap;
+import util.ResultSetPublisher;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Flow;
 
 public class TasksRepositoryImp implements TasksRepository {
 
     private static final TasksRepositoryImp INSTANCE = new TasksRepositoryImp();
 
+    private final TaskStatusRepository taskStatusRepository = TaskStatusRepositoryImp.getInstance();
+
     private TasksRepositoryImp() {}
 
     private static final String ADD_TASK = """
-            INSERT INTO tasks(title, status, employee_id) VALUES (?,?,?)
+            INSERT INTO tasks(title, status_id, employee_id) VALUES (?,?,?)
             """;
 
+    // в SET справа видны старые значения строки: время меняется, только если сменился статус
     private static final String UPDATE_TASK = """
-            UPDATE tasks SET title = ?, status = ? WHERE id = ?
+            UPDATE tasks SET title = ?, status_id = ?,
+                status_changed_at = CASE WHEN status_id IS DISTINCT FROM ? THEN now() ELSE status_changed_at END
+            WHERE id = ?
+            RETURNING id, title, status_id
             """;
 
     private static final String DELETE_TASK = """
@@ -27,20 +38,95 @@ public class TasksRepositoryImp implements TasksRepository {
             """;
 
     private static final String GET_TASK_BY_ID = """
-            SELECT * FROM tasks WHERE id = ?
+            SELECT id, title, status_id, employee_id FROM tasks WHERE id = ?
             """;
 
+    // все чтения задач фильтруются по employee_id: при секционированной tasks остаётся одна секция
     private static final String GET_TASKS_BY_EMPLOYEE_ID = """
-            SELECT * FROM tasks WHERE employee_id = ?
+            SELECT id, title, status_id FROM tasks WHERE employee_id = ? ORDER BY id
+            """;
+
+    private static final String GET_TASKS_PAGE_BY_EMPLOYEE_ID = """
+            SELECT id, title, status_id FROM tasks WHERE employee_id = ? AND id > ? ORDER BY id LIMIT ?
+            """;
+
+    // ORDER BY id совпадает с порядком индекса (status_id, id): чтение останавливается на LIMIT
+    private static final String GET_TASKS_PAGE_BY_STATUS = """
+            SELECT id, title, status_id, employee_id FROM tasks
+            WHERE status_id = ? AND id > ?
+            ORDER BY id LIMIT ?
+            """;
+
+    private static final String GET_TASKS_WITH_EMPLOYEE_PAGE_BY_STATUS = """
+            SELECT t.id, t.title, t.status_id, t.employee_id, e.emp_firstname, e.emp_lastname
+            FROM tasks AS t
+            JOIN employee AS e ON e.id = t.employee_id
+            WHERE t.status_id = ? AND t.id > ?
+            ORDER BY t.id LIMIT ?
+            """;
+
+    // архив читается только по явному запросу; каждая ветвь идёт по своему индексу (employee_id, id)
+    private static final String GET_TASKS_WITH_ARCHIVED_BY_EMPLOYEE_ID = """
+            SELECT id, title, status_id FROM tasks WHERE employee_id = ?
+            UNION ALL
+            SELECT id, title, status_id FROM tasks_archive WHERE employee_id = ?
+            ORDER BY id
+            """;
+
+    private static final String GET_TASKS_WITH_ARCHIVED_PAGE_BY_EMPLOYEE_ID = """
+            (SELECT id, title, status_id FROM tasks WHERE employee_id = ? AND id > ? ORDER BY id LIMIT ?)
+            UNION ALL
+            (SELECT id, title, status_id FROM tasks_archive WHERE employee_id = ? AND id > ? ORDER BY id LIMIT ?)
+            ORDER BY id LIMIT ?
+            """;
+
+    // SKIP LOCKED: строки, которые сейчас редактируют, уйдут в следующую пачку
+    private static final String ARCHIVE_TASKS = """
+            WITH moved AS (
+                DELETE FROM tasks
+                WHERE (employee_id, id) IN (
+                    SELECT employee_id, id FROM tasks
+                    WHERE status_id = ANY(?) AND status_changed_at < ?
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, title, status_id, employee_id, status_changed_at
+            )
+            INSERT INTO tasks_archive (id, title, status_id, employee_id, status_changed_at)
+            SELECT id, title, status_id, employee_id, status_changed_at FROM moved
+            """;
+
+    // employee_id = ANY(?) с массивом-параметром не отсекает секции в generic-плане,
+    // а LATERAL даёт отдельный поиск по каждому сотруднику с отсечением на каждой итерации
+    private static final String GET_TASKS_BY_EMPLOYEE_IDS = """
+            SELECT t.id, t.title, t.status_id, k.employee_id
+            FROM (SELECT DISTINCT unnest(?::bigint[]) AS employee_id) AS k
+            CROSS JOIN LATERAL (
+                SELECT id, title, status_id FROM tasks WHERE employee_id = k.employee_id
+            ) AS t
+            ORDER BY k.employee_id, t.id
+            """;
+
+    // JSON той же формы, что List<TasksDto> у Jackson; NULL, если сотрудника или задач нет
+    private static final String GET_TASKS_JSON_BY_EMPLOYEE_ID = """
+            SELECT '[' || string_agg('{"firstName":' || to_json(e.emp_firstname)::text
+                                     || ',"lastName":' || to_json(e.emp_lastname)::text
+                                     || ',"title":' || to_json(t.title)::text
+                                     || ',"status":' || coalesce(to_json(s.name)::text, 'null') || '}',
+                                     ',' ORDER BY t.id) || ']'
+            FROM employee AS e
+            JOIN tasks AS t ON t.employee_id = e.id
+            LEFT JOIN task_status AS s ON s.id = t.status_id
+            WHERE e.id = ?
             """;
 
     @Override
     public Tasks addTask(Tasks task, long employeeId) throws SQLException {
+        Short statusId = taskStatusRepository.getOrCreateId(task.getStatus());
         try (var connection = ConnectionManager.get();
              var ps = connection.prepareStatement(ADD_TASK,
                      Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, task.getTitle());
-            ps.setString(2, task.getStatus());
+            ps.setObject(2, statusId, Types.SMALLINT);
             ps.setLong(3, employeeId);
 
             int count = ps.executeUpdate();
@@ -59,24 +145,21 @@ public class TasksRepositoryImp implements TasksRepository {
     @Override
     public Tasks updateTask(Tasks task, long taskId) throws SQLException {
         Tasks updateTask = null;
+        Short statusId = taskStatusRepository.getOrCreateId(task.getStatus());
         try (var connection = ConnectionManager.get();
              var ps = connection.prepareStatement(UPDATE_TASK)) {
             ps.setString(1, task.getTitle());
-            ps.setString(2, task.getStatus());
-            ps.setLong(3, taskId);
-            int count = ps.executeUpdate();
-            if (count == 0) {
-                throw new SQLException("Task not updated");
-            }
-
-            var ps1 = connection.prepareStatement("SELECT * FROM tasks WHERE id = ?");
-            ps1.setLong(1, taskId);
-            try (var resultSet = ps1.executeQuery()) {
+            ps.setObject(2, statusId, Types.SMALLINT);
+            ps.setObject(3, statusId, Types.SMALLINT);
+            ps.setLong(4, taskId);
+            try (var resultSet = ps.executeQuery()) {
                 if (resultSet.next()) {
-                    return buildTasks(resultSet);
+                    updateTask = buildTasks(resultSet);
                 }
             }
-            ps1.close();
+        }
+        if (updateTask == null) {
+            throw new SQLException("Task not updated");
         }
         updateTask.setEmployee(task.getEmployee());
         return updateTask;
@@ -103,6 +186,7 @@ public class TasksRepositoryImp implements TasksRepository {
             try (var resultSet = ps.executeQuery()) {
                 if (resultSet.next()) {
                     task = buildTasks(resultSet);
+                    task.setEmployee(new Employee(resultSet.getLong("employee_id"), null, null, null));
                 }
             }
         }
@@ -132,6 +216,169 @@ public class TasksRepositoryImp implements TasksRepository {
         }
     }
 
+    @Override
+    public List<Tasks> getTasksByEmployeeId(long employeeId, long afterId, int limit) throws SQLException {
+        List<Tasks> tasks = new ArrayList<>(limit);
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_TASKS_PAGE_BY_EMPLOYEE_ID)) {
+            ps.setLong(1, employeeId);
+            ps.setLong(2, afterId);
+            ps.setInt(3, limit);
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(buildTasks(resultSet));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Tasks> getTasksByStatus(String status, long afterId, int limit, boolean withEmployee)
+            throws SQLException {
+        List<Tasks> tasks = new ArrayList<>(limit);
+        Short statusId = taskStatusRepository.findId(status);
+        if (statusId == null) {
+            return tasks;
+        }
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(withEmployee
+                     ? GET_TASKS_WITH_EMPLOYEE_PAGE_BY_STATUS
+                     : GET_TASKS_PAGE_BY_STATUS)) {
+            ps.setShort(1, statusId);
+            ps.setLong(2, afterId);
+            ps.setInt(3, limit);
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    Tasks task = buildTasks(resultSet);
+                    task.setEmployee(new Employee(resultSet.getLong("employee_id"),
+                            withEmployee ? resultSet.getString("emp_firstname") : null,
+                            withEmployee ? resultSet.getString("emp_lastname") : null,
+                            null));
+                    tasks.add(task);
+                }
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Tasks> getTasksWithArchivedByEmployeeId(long employeeId) throws SQLException {
+        List<Tasks> tasks = new ArrayList<>();
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_TASKS_WITH_ARCHIVED_BY_EMPLOYEE_ID)) {
+            ps.setLong(1, employeeId);
+            ps.setLong(2, employeeId);
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(buildTasks(resultSet));
+                }
+            }
+        }
+        if (tasks.isEmpty()) {
+            throw new SQLException("Tasks not found");
+        }
+        return tasks;
+    }
+
+    @Override
+    public List<Tasks> getTasksWithArchivedByEmployeeId(long employeeId, long afterId, int limit) throws SQLException {
+        List<Tasks> tasks = new ArrayList<>(limit);
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_TASKS_WITH_ARCHIVED_PAGE_BY_EMPLOYEE_ID)) {
+            ps.setLong(1, employeeId);
+            ps.setLong(2, afterId);
+            ps.setInt(3, limit);
+            ps.setLong(4, employeeId);
+            ps.setLong(5, afterId);
+            ps.setInt(6, limit);
+            ps.setInt(7, limit);
+            try (var resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    tasks.add(buildTasks(resultSet));
+                }
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public int archiveTasks(String[] statuses, Timestamp changedBefore, int batchSize) throws SQLException {
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(ARCHIVE_TASKS)) {
+            List<Short> statusIds = new ArrayList<>(statuses.length);
+            for (String status : statuses) {
+                // статуса нет в справочнике — значит, и задач с ним нет
+                Short statusId = taskStatusRepository.findId(status);
+                if (statusId != null) {
+                    statusIds.add(statusId);
+                }
+            }
+            if (statusIds.isEmpty()) {
+                return 0;
+            }
+            ps.setArray(1, connection.createArrayOf("smallint", statusIds.toArray()));
+            ps.setTimestamp(2, changedBefore);
+            ps.setInt(3, batchSize);
+            return ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public LongHashMap<List<Tasks>> getTasksByEmployeeIds(long[] employeeIds) throws SQLException {
+        LongHashMap<List<Tasks>> tasksByEmployee = new LongHashMap<>(employeeIds.length);
+        if (employeeIds.length == 0) {
+            return tasksByEmployee;
+        }
+        Long[] ids = new Long[employeeIds.length];
+        for (int i = 0; i < employeeIds.length; i++) {
+            ids[i] = employeeIds[i];
+        }
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_TASKS_BY_EMPLOYEE_IDS)) {
+            ps.setArray(1, connection.createArrayOf("bigint", ids));
+            try (var resultSet = ps.executeQuery()) {
+                long currentEmployeeId = 0;
+                List<Tasks> current = null;
+                while (resultSet.next()) {
+                    long employeeId = resultSet.getLong("employee_id");
+                    // строки упорядочены по employee_id, поэтому группа меняется только на границе
+                    if (current == null || employeeId != currentEmployeeId) {
+                        currentEmployeeId = employeeId;
+                        current = new ArrayList<>();
+                        tasksByEmployee.put(employeeId, current);
+                    }
+                    current.add(buildTasks(resultSet));
+                }
+            }
+        }
+        return tasksByEmployee;
+    }
+
+    @Override
+    public byte[] getTasksJsonByEmployeeId(long employeeId) throws SQLException {
+        byte[] json = null;
+        try (var connection = ConnectionManager.get();
+             var ps = connection.prepareStatement(GET_TASKS_JSON_BY_EMPLOYEE_ID)) {
+            ps.setLong(1, employeeId);
+            try (var resultSet = ps.executeQuery()) {
+                if (resultSet.next()) {
+                    json = resultSet.getBytes(1);
+                }
+            }
+        }
+        if (json == null) {
+            throw new SQLException("Tasks not found");
+        }
+        return json;
+    }
+
+    @Override
+    public Flow.Publisher<Tasks> publishTasksByEmployeeId(long employeeId) {
+        return new ResultSetPublisher<>(GET_TASKS_BY_EMPLOYEE_ID, ps -> ps.setLong(1, employeeId),
+                ResultSetPublisher.rows(this::buildTasks));
+    }
+
     public static TasksRepositoryImp getInstance() {
         return INSTANCE;
     }
@@ -140,7 +387,7 @@ public class TasksRepositoryImp implements TasksRepository {
         return new Tasks(
                 rs.getLong("id"),
                 rs.getString("title"),
-                rs.getString("status")
+                taskStatusRepository.getName(rs.getShort("status_id"))
         );
     }
 }
@@ -1,6 +1,8 @@
 package service;
 
 import model.dto.ActivityDto;
+import model.dto.PageDto;
+import util.SqlConsumer;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -16,4 +18,12 @@ public interface ActivityService {
     ActivityDto getActivityById(long id) throws SQLException;
 
     List<ActivityDto> getAllActivities() throws SQLException;
+
+    List<ActivityDto> getAllActivities(boolean withEmployees) throws SQLException;
+
+    PageDto<ActivityDto> getActivities(long afterId, int limit, boolean withEmployees) throws SQLException;
+
+    void streamAllActivities(SqlConsumer<ActivityDto> consumer) throws SQLException;
+
+    byte[] getAllActivitiesJson() throws SQLException;
 }
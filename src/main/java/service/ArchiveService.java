@@ -0,0 +1,14 @@
+package service;
+
+import java.sql.SQLException;
+
+public interface ArchiveService {
+
+    /**
+     * Переносит в архив завершённые задачи пачками, пока подходящие не закончатся
+     * или поток не прервут.
+     *
+     * @return количество перенесённых задач
+     */
+    long archiveCompletedTasks() throws SQLException;
+}
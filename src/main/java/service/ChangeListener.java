@@ -0,0 +1,23 @@
+package service;
+
+/**
+ * Уведомления сервисов о записи данных — для кешей, которые держат производные от них значения.
+ * Вызываются после записи в том же потоке, поэтому должны быть быстрыми.
+ */
+public interface ChangeListener {
+
+    /**
+     * Изменились сотрудник, его задачи или связи с активностями.
+     */
+    void employeeChanged(long employeeId);
+
+    /**
+     * Изменились данные произвольных сотрудников (импорт, архивация, удаление активности).
+     */
+    void allEmployeesChanged();
+
+    /**
+     * Добавлена, изменена или удалена активность.
+     */
+    void activitiesChanged();
+}
@@ -1,6 +1,7 @@
 package service;
 
 import model.dto.EmployeeDto;
+import util.SqlConsumer;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -15,5 +16,11 @@ public interface EmployeeService {
 
     EmployeeDto getEmployeeById(long id) throws SQLException;
 
+    EmployeeDto getEmployeeById(long id, boolean withActivities, boolean withTasks) throws SQLException;
+
+    byte[] getEmployeeJson(long id) throws SQLException;
+
     List<EmployeeDto> getEmployeesByActivityId(long id) throws SQLException;
+
+    void streamEmployeesByActivityId(long id, SqlConsumer<EmployeeDto> consumer) throws SQLException;
 }
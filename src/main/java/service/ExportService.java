@@ -0,0 +1,14 @@
+package service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+public interface ExportService {
+
+    /**
+     * @param entity   employee, task или employee-activity
+     * @param parallel на сколько диапазонов id разбить выгрузку; 1 — одним запросом
+     */
+    void export(String entity, boolean csv, int parallel, OutputStream out) throws SQLException, IOException;
+}
@@ -0,0 +1,16 @@
+package service;
+
+import model.dto.ImportResultDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.SQLException;
+
+public interface ImportService {
+
+    ImportResultDto importEmployees(BufferedReader body, boolean csv) throws SQLException, IOException;
+
+    ImportResultDto importTasks(BufferedReader body, boolean csv) throws SQLException, IOException;
+
+    ImportResultDto importEmployeeActivities(BufferedReader body, boolean csv) throws SQLException, IOException;
+}
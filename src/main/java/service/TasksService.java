@@ -1,6 +1,7 @@
 package service;
 
 import model.Tasks;
+import model.dto.PageDto;
 import model.dto.TasksDto;
 
 import java.sql.SQLException;
@@ -15,4 +16,19 @@ public interface TasksService {
     void deleteTasks(long id) throws SQLException;
 
     List<TasksDto> getTasksByEmployeeId(long id) throws SQLException;
+
+    List<TasksDto> getTasksByEmployeeId(long id, boolean withEmployee) throws SQLException;
+
+    /**
+     * @param includeArchived добавить задачи из архива
+     */
+    List<TasksDto> getTasksByEmployeeId(long id, boolean withEmployee, boolean includeArchived) throws SQLException;
+
+    PageDto<TasksDto> getTasksByEmployeeId(long id, long afterId, int limit, boolean withEmployee,
+                                           boolean includeArchived) throws SQLException;
+
+    PageDto<TasksDto> getTasksByStatus(String status, long afterId, int limit, boolean withEmployee)
+            throws SQLException;
+
+    byte[] getTasksJsonByEmployeeId(long id) throws SQLException;
 }
@@ -3,14 +3,19 @@ package service.impl;
 import model.Activity;
 import model.Employee;
 import model.dto.ActivityDto;
+import model.dto.PageDto;
 import model.mapper.ActivityMapper;
 import repository.ActivityRepository;
 import repository.EmployeeRepository;
-import repository.impl.ActivityRepositoryImp;
+import repository.impl.CachingActivityRepository;
 import repository.impl.EmployeeRepositoryImp;
 import service.ActivityService;
+import util.PageCursor;
+import util.SingleFlight;
+import util.SqlConsumer;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,24 +23,35 @@ import java.util.stream.Collectors;
 public class ActivityServiceImpl implements ActivityService {
 
     private static final ActivityServiceImpl INSTANCE = new ActivityServiceImpl();
+    private static final long ALL_ACTIVITIES = 0;
 
-    private final ActivityRepository repository = ActivityRepositoryImp.getInstance();
+    private final ActivityRepository repository = CachingActivityRepository.getInstance();
     private final EmployeeRepository employeeRepository = EmployeeRepositoryImp.getInstance();
+    private final SingleFlight<List<ActivityDto>> allActivitiesFlight = new SingleFlight<>();
 
     private ActivityServiceImpl() {
+        ChangeEvents.forgetOnAnyChange(allActivitiesFlight);
     }
 
     @Override
     public ActivityDto addActivity(ActivityDto activityDto) throws SQLException {
         Activity activity = ActivityMapper.toActivity(0, activityDto);
-
-        return ActivityMapper.toActivityDto(repository.addActivity(activity));
+        try {
+            return ActivityMapper.toActivityDto(repository.addActivity(activity));
+        } finally {
+            ChangeEvents.activitiesChanged();
+        }
     }
 
     @Override
     public ActivityDto updateActivity(ActivityDto activityDto, long id) throws SQLException {
         repository.getActivityById(id);
-        Activity activity = repository.updateActivity(ActivityMapper.toActivity(id, activityDto));
+        Activity activity;
+        try {
+            activity = repository.updateActivity(ActivityMapper.toActivity(id, activityDto));
+        } finally {
+            ChangeEvents.activitiesChanged();
+        }
 
         return ActivityMapper.toActivityDto(activity);
     }
@@ -43,7 +59,13 @@ public class ActivityServiceImpl implements ActivityService {
     @Override
     public void deleteActivity(long id) throws SQLException {
         repository.getActivityById(id);
-        repository.deleteActivity(id);
+        try {
+            repository.deleteActivity(id);
+        } finally {
+            // вместе с активностью удаляются её связи: сотрудники этой активности заранее неизвестны
+            ChangeEvents.allEmployeesChanged();
+            ChangeEvents.activitiesChanged();
+        }
     }
 
     @Override
@@ -54,11 +76,56 @@ public class ActivityServiceImpl implements ActivityService {
 
     @Override
     public List<ActivityDto> getAllActivities() throws SQLException {
-        Map<Activity, List<Employee>> map = repository.getActivitiesWithEmployee();
-        return map.entrySet().stream()
-                .peek(e -> e.getKey().setEmployees(e.getValue()))
-                .map(e -> ActivityMapper.toActivityDto(e.getKey()))
+        // одновременные запросы полного списка читают его из базы один раз
+        return allActivitiesFlight.load(ALL_ACTIVITIES, () -> {
+            Map<Activity, List<Employee>> map = repository.getActivitiesWithEmployee();
+            return map.entrySet().stream()
+                    .peek(e -> e.getKey().setEmployees(e.getValue()))
+                    .map(e -> ActivityMapper.toActivityDto(e.getKey()))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public List<ActivityDto> getAllActivities(boolean withEmployees) throws SQLException {
+        if (withEmployees) {
+            return getAllActivities();
+        }
+        return repository.getActivities().stream()
+                .map(ActivityMapper::toActivityDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public PageDto<ActivityDto> getActivities(long afterId, int limit, boolean withEmployees) throws SQLException {
+        // берём на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<Activity> activities;
+        if (withEmployees) {
+            Map<Activity, List<Employee>> map = repository.getActivitiesWithEmployee(afterId, limit + 1);
+            map.forEach(Activity::setEmployees);
+            activities = new ArrayList<>(map.keySet());
+        } else {
+            activities = repository.getActivities(afterId, limit + 1);
+        }
+        String nextCursor = null;
+        if (activities.size() > limit) {
+            activities = activities.subList(0, limit);
+            nextCursor = PageCursor.encode(activities.get(limit - 1).getId());
+        }
+        List<ActivityDto> items = activities.stream()
+                .map(ActivityMapper::toActivityDto)
                 .collect(Collectors.toList());
+        return new PageDto<>(items, nextCursor);
+    }
+
+    @Override
+    public void streamAllActivities(SqlConsumer<ActivityDto> consumer) throws SQLException {
+        repository.streamActivitiesWithEmployee(activity -> consumer.accept(ActivityMapper.toActivityDto(activity)));
+    }
+
+    @Override
+    public byte[] getAllActivitiesJson() throws SQLException {
+        return repository.getActivitiesWithEmployeeJson();
     }
 
     public static ActivityServiceImpl getInstance() {
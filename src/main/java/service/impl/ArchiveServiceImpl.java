@@ -0,0 +1,60 @@
+package service.impl;
+
+import repository.TasksRepository;
+import repository.impl.TasksRepositoryImp;
+import service.ArchiveService;
+import util.PropertiesUtil;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Каждая пачка — отдельная короткая транзакция, между пачками пауза,
+ * чтобы архивация не отнимала у запросов соединения и ввод-вывод.
+ */
+public class ArchiveServiceImpl implements ArchiveService {
+
+    private static final ArchiveServiceImpl INSTANCE = new ArchiveServiceImpl();
+
+    private static final String[] STATUSES = PropertiesUtil.get("archive.statuses", "").split("\\s*,\\s*");
+    private static final Duration OLDER_THAN = Duration.ofDays(PropertiesUtil.getInt("archive.olderThanDays", 30));
+    private static final int BATCH_SIZE = PropertiesUtil.getInt("archive.batchSize", 1_000);
+    private static final long BATCH_PAUSE_MS = PropertiesUtil.getLong("archive.batchPauseMs", 200L);
+
+    private final TasksRepository tasksRepository = TasksRepositoryImp.getInstance();
+
+    private ArchiveServiceImpl() {
+    }
+
+    @Override
+    public long archiveCompletedTasks() throws SQLException {
+        if (STATUSES.length == 0 || STATUSES[0].isEmpty()) {
+            return 0;
+        }
+        // граница фиксируется на весь проход, чтобы он гарантированно закончился
+        Timestamp changedBefore = Timestamp.from(Instant.now().minus(OLDER_THAN));
+        long total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int moved = tasksRepository.archiveTasks(STATUSES, changedBefore, BATCH_SIZE);
+            total += moved;
+            if (moved > 0) {
+                ChangeEvents.allEmployeesChanged();
+            }
+            if (moved < BATCH_SIZE) {
+                break;
+            }
+            try {
+                Thread.sleep(BATCH_PAUSE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return total;
+    }
+
+    public static ArchiveServiceImpl getInstance() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,93 @@
+package service.impl;
+
+import service.ChangeListener;
+import util.SingleFlight;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Рассылка {@link ChangeListener}-ам. Сервисы сообщают сюда о каждой записи,
+ * кеши сервисного и сервлетного слоя подписываются и сбрасывают свои записи.
+ * Кеш агрегатов сотрудников уведомляется первым: производные кеши (например, готовые JSON-ответы)
+ * после сброса должны перечитывать уже сброшенные данные, а не старый агрегат.
+ */
+public final class ChangeEvents {
+
+    private static final List<ChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private ChangeEvents() {
+    }
+
+    public static void addListener(ChangeListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(ChangeListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Загрузки по id сотрудника, начатые до его изменения, больше не раздаются новым вызовам.
+     */
+    static void forgetOnEmployeeChange(SingleFlight<?> flights) {
+        addListener(new ChangeListener() {
+            @Override
+            public void employeeChanged(long employeeId) {
+                flights.forget(employeeId);
+            }
+
+            @Override
+            public void allEmployeesChanged() {
+                flights.forgetAll();
+            }
+
+            @Override
+            public void activitiesChanged() {
+            }
+        });
+    }
+
+    /**
+     * Для загрузок, которые зависят от любых данных (например, все активности с сотрудниками).
+     */
+    static void forgetOnAnyChange(SingleFlight<?> flights) {
+        addListener(new ChangeListener() {
+            @Override
+            public void employeeChanged(long employeeId) {
+                flights.forgetAll();
+            }
+
+            @Override
+            public void allEmployeesChanged() {
+                flights.forgetAll();
+            }
+
+            @Override
+            public void activitiesChanged() {
+                flights.forgetAll();
+            }
+        });
+    }
+
+    static void employeeChanged(long employeeId) {
+        EmployeeAggregateCache.getInstance().employeeChanged(employeeId);
+        for (ChangeListener listener : LISTENERS) {
+            listener.employeeChanged(employeeId);
+        }
+    }
+
+    static void allEmployeesChanged() {
+        EmployeeAggregateCache.getInstance().allEmployeesChanged();
+        for (ChangeListener listener : LISTENERS) {
+            listener.allEmployeesChanged();
+        }
+    }
+
+    static void activitiesChanged() {
+        EmployeeAggregateCache.getInstance().activitiesChanged();
+        for (ChangeListener listener : LISTENERS) {
+            listener.activitiesChanged();
+        }
+    }
+}
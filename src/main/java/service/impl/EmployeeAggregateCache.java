@@ -0,0 +1,217 @@
+package service.impl;
+
+import model.dto.EmployeeDto;
+import model.dto.TasksDto;
+import model.mapper.EmployeeSnapshotMapper;
+import service.ChangeListener;
+import util.OffHeapStore;
+import util.PropertiesUtil;
+import util.SingleFlight;
+import util.SqlSupplier;
+import util.TinyLfuCache;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Кеш собранных EmployeeDto (сотрудник + активности + задачи) по id сотрудника.
+ * Ограничен оценкой занимаемой памяти, а не числом записей: у сотрудника может быть тысяча задач.
+ * Сбрасывается по {@link ChangeEvents} при записи сотрудника, его задач и связей с активностями.
+ * При cache.employee.store=offheap агрегаты лежат вне кучи в бинарном виде
+ * ({@link EmployeeSnapshotMapper}) и разбираются в объекты только при чтении и только в нужной части;
+ * вытеснения там нет — когда место кончается, новые агрегаты просто не кешируются.
+ * Промахи по одному id склеиваются в одну загрузку ({@link SingleFlight}), и кеш сам забывает её при записи —
+ * раньше, чем сдвигает поколение: иначе новый вызов с новым поколением успел бы присоединиться к старой загрузке
+ * и закешировать её результат. {@link ChangeEvents} уведомляет этот кеш раньше остальных подписчиков.
+ * Сброс работает только внутри процесса: записи другого экземпляра, импорт и архивация в нём же,
+ * ручной SQL видны не позже чем через cache.employee.ttlMs — как и у {@link repository.impl.CachingActivityRepository}.
+ * Без TTL кеш годится только для единственного экземпляра, который один пишет в базу.
+ */
+public final class EmployeeAggregateCache implements ChangeListener {
+
+    private static final EmployeeAggregateCache INSTANCE = new EmployeeAggregateCache(
+            PropertiesUtil.getBoolean("cache.employee.enabled", true),
+            "offheap".equals(PropertiesUtil.get("cache.employee.store", "heap")),
+            PropertiesUtil.getLong("cache.employee.maxWeight", 32L * 1024 * 1024),
+            PropertiesUtil.getLong("cache.employee.ttlMs", 60_000L),
+            System::nanoTime);
+
+    private static final int SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    // заголовок объекта + поля, грубо для 64-битной JVM со сжатыми ссылками
+    private static final int OBJECT_BYTES = 32;
+    private static final int REFERENCE_BYTES = 8;
+
+    private final TinyLfuCache<Entry> cache;
+    // запись вне кучи: срок годности (long), затем снимок агрегата
+    private final OffHeapStore store;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final SingleFlight<EmployeeDto> flights = new SingleFlight<>();
+    // растёт при каждом сбросе: агрегат, собранный до сброса, в кеше не останется
+    private final AtomicLong generation = new AtomicLong();
+
+    public EmployeeAggregateCache(boolean enabled, boolean offHeap, long maxWeight, long ttlMs, LongSupplier nanoClock) {
+        int expectedEntries = (int) Math.min(maxWeight / 1_024, 65_536);
+        this.cache = enabled && !offHeap
+                ? new TinyLfuCache<>(maxWeight, expectedEntries, entry -> (int) Math.min((long) OBJECT_BYTES + weigh(entry.value), Integer.MAX_VALUE))
+                : null;
+        this.store = enabled && offHeap
+                ? new OffHeapStore(Math.max(maxWeight, SEGMENT_BYTES), SEGMENT_BYTES, expectedEntries)
+                : null;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = nanoClock;
+    }
+
+    public static EmployeeAggregateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Отдаёт копию закешированного агрегата или собирает его через loader и кеширует.
+     */
+    public EmployeeDto get(long id, SqlSupplier<EmployeeDto> loader) throws SQLException {
+        if (cache == null && store == null) {
+            return flights.load(id, loader);
+        }
+        EmployeeDto cached = getIfPresent(id, true, true);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = generation.get();
+        // один агрегат достаётся всем участникам загрузки: в кеш он идёт как есть, наружу — копия
+        EmployeeDto loaded = flights.load(id, loader);
+        long expiresAt = clock.getAsLong() + ttlNanos;
+        if (store != null) {
+            byte[] snapshot = EmployeeSnapshotMapper.toBytes(loaded);
+            store.put(id, ByteBuffer.allocate(Long.BYTES + snapshot.length).putLong(expiresAt).put(snapshot).array());
+        } else {
+            cache.put(id, new Entry(loaded, expiresAt));
+        }
+        if (generation.get() != stamp) {
+            // пока собирали, данные поменялись: сброс мог пройти до put
+            invalidate(id);
+        }
+        return copy(loaded);
+    }
+
+    /**
+     * Копия из кеша или null — без обращения к базе. Не запрошенные части агрегата — null.
+     */
+    public EmployeeDto getIfPresent(long id, boolean withActivities, boolean withTasks) {
+        if (store != null) {
+            return store.read(id, record -> isExpired(record.getLong(0))
+                    ? null
+                    : EmployeeSnapshotMapper.toEmployeeDto(
+                            record.slice(Long.BYTES, record.limit() - Long.BYTES), withActivities, withTasks));
+        }
+        if (cache == null) {
+            return null;
+        }
+        // просроченная запись не удаляется: её перезапишет следующая загрузка или вытеснит кеш
+        Entry cached = cache.get(id);
+        if (cached == null || isExpired(cached.expiresAt)) {
+            return null;
+        }
+        EmployeeDto copy = copy(cached.value);
+        if (!withActivities) {
+            copy.setActivity(null);
+        }
+        if (!withTasks) {
+            copy.setTasks(null);
+        }
+        return copy;
+    }
+
+    @Override
+    public void employeeChanged(long employeeId) {
+        flights.forget(employeeId);
+        generation.incrementAndGet();
+        invalidate(employeeId);
+    }
+
+    @Override
+    public void allEmployeesChanged() {
+        flights.forgetAll();
+        generation.incrementAndGet();
+        if (store != null) {
+            store.clear();
+        } else if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void activitiesChanged() {
+        // в агрегате только id активностей; удалённые связи приходят как allEmployeesChanged
+    }
+
+    @Override
+    public String toString() {
+        if (store != null) {
+            return store.toString();
+        }
+        return cache == null ? "EmployeeAggregateCache{disabled}" : cache.toString();
+    }
+
+    private boolean isExpired(long expiresAt) {
+        return expiresAt - clock.getAsLong() <= 0;
+    }
+
+    private void invalidate(long id) {
+        if (store != null) {
+            store.remove(id);
+        } else if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    private static EmployeeDto copy(EmployeeDto dto) {
+        List<TasksDto> tasks = null;
+        if (dto.getTasks() != null) {
+            tasks = new ArrayList<>(dto.getTasks().size());
+            for (TasksDto task : dto.getTasks()) {
+                tasks.add(new TasksDto(task.getFirstName(), task.getLastName(), task.getTitle(), task.getStatus()));
+            }
+        }
+        List<Long> activity = dto.getActivity() == null ? null : new ArrayList<>(dto.getActivity());
+        return new EmployeeDto(dto.getFirstName(), dto.getLastName(), dto.getPosition(), activity, tasks);
+    }
+
+    static int weigh(EmployeeDto dto) {
+        long bytes = OBJECT_BYTES + weigh(dto.getFirstName()) + weigh(dto.getLastName()) + weigh(dto.getPosition());
+        if (dto.getActivity() != null) {
+            // Long + ссылка в ArrayList
+            bytes += OBJECT_BYTES + dto.getActivity().size() * (long) (16 + REFERENCE_BYTES);
+        }
+        if (dto.getTasks() != null) {
+            bytes += OBJECT_BYTES;
+            for (TasksDto task : dto.getTasks()) {
+                bytes += OBJECT_BYTES + REFERENCE_BYTES + weigh(task.getFirstName()) + weigh(task.getLastName())
+                        + weigh(task.getTitle()) + weigh(task.getStatus());
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long weigh(String value) {
+        // имена и статусы часто общие экземпляры, но считаем как отдельные: оценка сверху
+        return value == null ? 0 : OBJECT_BYTES + 16 + 2L * value.length();
+    }
+
+    private static final class Entry {
+
+        private final EmployeeDto value;
+        private final long expiresAt;
+
+        private Entry(EmployeeDto value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -8,14 +8,20 @@ import model.mapper.EmployeeMapper;
 import repository.ActivityRepository;
 import repository.EmployeeRepository;
 import repository.TasksRepository;
-import repository.impl.ActivityRepositoryImp;
+import repository.impl.CachingActivityRepository;
 import repository.impl.EmployeeRepositoryImp;
 import repository.impl.TasksRepositoryImp;
 import service.EmployeeService;
 
+import util.ConnectionContext;
+import util.LongHashMap;
+import util.SqlConsumer;
+
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import java.util.stream.Collectors;
 
@@ -23,29 +29,38 @@ public class EmployeeServiceImpl implements EmployeeService {
 
     private static final EmployeeServiceImpl INSTANCE = new EmployeeServiceImpl();
     private final EmployeeRepository employeeRepository = EmployeeRepositoryImp.getInstance();
-    private final ActivityRepository activityRepository = ActivityRepositoryImp.getInstance();
+    private final ActivityRepository activityRepository = CachingActivityRepository.getInstance();
     private static final TasksRepository tasksRepository = TasksRepositoryImp.getInstance();
+    private final EmployeeAggregateCache employeeCache = EmployeeAggregateCache.getInstance();
 
     public EmployeeServiceImpl() {
     }
 
     @Override
     public EmployeeDto addEmployee(EmployeeDto employeeDto, List<Long> activityList) throws SQLException {
-        List<Activity> activities = new ArrayList<>();
-        for(Long id: activityList){
-            activities.add(activityRepository.getActivityById(id));
+        Employee employee = ConnectionContext.inTransaction(() -> {
+            List<Activity> activities = findActivities(activityList);
+            Employee added = employeeRepository.addEmployee(EmployeeMapper.toEmployee(employeeDto, 0), activityList);
+            added.setActivities(activities);
+            added.setTasks(new ArrayList<>());
+            return added;
+        });
+        // новый сотрудник попадает в списки активностей
+        if (employee.getId() != null) {
+            ChangeEvents.employeeChanged(employee.getId());
         }
-        Employee employee = employeeRepository.addEmployee(EmployeeMapper.toEmployee(employeeDto, 0), activityList);
-        employee.setActivities(activities);
-        employee.setTasks(new ArrayList<>());
-
         return EmployeeMapper.toEmployeeDto(employee);
     }
 
     @Override
     public EmployeeDto updateEmployee(EmployeeDto employeeDto, long id) throws SQLException {
         employeeRepository.getEmployeeById(id);
-        Employee updatedEmployee = employeeRepository.updateEmployee(EmployeeMapper.toEmployee(employeeDto, id));
+        Employee updatedEmployee;
+        try {
+            updatedEmployee = employeeRepository.updateEmployee(EmployeeMapper.toEmployee(employeeDto, id));
+        } finally {
+            ChangeEvents.employeeChanged(id);
+        }
         List<Activity> activities = employeeRepository.findActivityByEmployeeId(id);
         List<Tasks> tasks = tasksRepository.getTasksByEmployeeId(id);
         tasks.stream()
@@ -60,30 +75,49 @@ public class EmployeeServiceImpl implements EmployeeService {
     @Override
     public void deleteEmployee(long id) throws SQLException {
         employeeRepository.getEmployeeById(id);
-        employeeRepository.deleteEmployee(id);
+        try {
+            employeeRepository.deleteEmployee(id);
+        } finally {
+            ChangeEvents.employeeChanged(id);
+        }
     }
 
     @Override
     public EmployeeDto getEmployeeById(long id) throws SQLException {
-        Employee employee = employeeRepository.getEmployeeById(id);
-        List<Activity> activities = employeeRepository.findActivityByEmployeeId(id);
-        List<Tasks> tasks = tasksRepository.getTasksByEmployeeId(id);
-        tasks.stream()
-                .peek(t -> t.setEmployee(employee))
-                .collect(Collectors.toList());
-        employee.setActivities(activities);
-        employee.setTasks(tasks);
+        // при промахе одновременные запросы одного сотрудника собирают агрегат один раз
+        return employeeCache.get(id,
+                () -> EmployeeMapper.toEmployeeDto(employeeRepository.getEmployeeWithDetails(id)));
+    }
 
+    @Override
+    public EmployeeDto getEmployeeById(long id, boolean withActivities, boolean withTasks) throws SQLException {
+        // усечённые выборки не кешируются, но полный агрегат из кеша их покрывает
+        EmployeeDto cached = employeeCache.getIfPresent(id, withActivities, withTasks);
+        if (cached != null) {
+            return cached;
+        }
+        Employee employee = employeeRepository.getEmployeeWithDetails(id, withActivities, withTasks);
         return EmployeeMapper.toEmployeeDto(employee);
     }
 
+    @Override
+    public byte[] getEmployeeJson(long id) throws SQLException {
+        return employeeRepository.getEmployeeJson(id);
+    }
+
     @Override
     public List<EmployeeDto> getEmployeesByActivityId(long id) throws SQLException {
         List<Employee> employees = employeeRepository.getEmployeesByActivityId(id);
         Activity activity = activityRepository.getActivityById(id);
-        List<EmployeeDto> employeeDtos = new ArrayList<>();
+        long[] employeeIds = employees.stream().mapToLong(Employee::getId).toArray();
+        LongHashMap<List<Tasks>> tasksByEmployee = tasksRepository.getTasksByEmployeeIds(employeeIds);
+        List<EmployeeDto> employeeDtos = new ArrayList<>(employees.size());
         for(Employee employee: employees){
-            List<Tasks> tasks = tasksRepository.getTasksByEmployeeId(employee.getId());
+            List<Tasks> tasks = tasksByEmployee.get(employee.getId());
+            if (tasks == null) {
+                tasks = new ArrayList<>();
+            }
+            tasks.forEach(t -> t.setEmployee(employee));
             employee.setTasks(tasks);
             employee.setActivities(List.of(activity));
             employeeDtos.add(EmployeeMapper.toEmployeeDto(employee));
@@ -91,6 +125,32 @@ public class EmployeeServiceImpl implements EmployeeService {
         return employeeDtos;
     }
 
+    @Override
+    public void streamEmployeesByActivityId(long id, SqlConsumer<EmployeeDto> consumer) throws SQLException {
+        Activity activity = activityRepository.getActivityById(id);
+        List<Activity> activities = List.of(activity);
+        employeeRepository.streamEmployeesWithTasksByActivityId(id, employee -> {
+            employee.setActivities(activities);
+            consumer.accept(EmployeeMapper.toEmployeeDto(employee));
+        });
+    }
+
+    private List<Activity> findActivities(List<Long> activityList) throws SQLException {
+        Map<Long, Activity> found = new HashMap<>();
+        for (Activity activity : activityRepository.getActivitiesByIds(activityList)) {
+            found.put(activity.getId(), activity);
+        }
+        List<Activity> activities = new ArrayList<>(activityList.size());
+        for (Long id : activityList) {
+            Activity activity = found.get(id);
+            if (activity == null) {
+                throw new SQLException("Activity not found");
+            }
+            activities.add(activity);
+        }
+        return activities;
+    }
+
     public static EmployeeServiceImpl getInstance() {
         return INSTANCE;
     }
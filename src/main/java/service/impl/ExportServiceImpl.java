@@ -0,0 +1,263 @@
+package service.impl;
+
+import repository.BulkRepository;
+import repository.impl.BulkRepositoryImp;
+import service.ExportService;
+import util.ConnectionContext;
+import util.PropertiesUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Выгрузка через COPY TO STDOUT прямо в поток ответа.
+ * В параллельном режиме диапазоны id читаются одновременно на отдельных соединениях в одном снимке данных,
+ * а ответ собирается в порядке диапазонов: каждый диапазон держит в памяти не больше QUEUE_CHUNKS кусков.
+ * Все выгрузки вместе занимают не больше export.maxConnections соединений (по умолчанию половину пула):
+ * соединение запроса занято всё время скачивания, и без общего предела несколько параллельных выгрузок
+ * забрали бы весь пул у остальных запросов. Если свободных мест нет, выгрузка отклоняется сразу,
+ * а параллельная получает столько потоков, сколько мест осталось.
+ * Ошибка одного диапазона сразу отменяет остальные, и запрос получает именно её, а не отмену соседей.
+ */
+public class ExportServiceImpl implements ExportService {
+
+    private static final ExportServiceImpl INSTANCE = new ExportServiceImpl(
+            BulkRepositoryImp.getInstance(),
+            PropertiesUtil.getInt("export.maxParallel", 4),
+            PropertiesUtil.getInt("export.maxConnections", PropertiesUtil.getInt("db.pool.maxSize", 10) / 2));
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_CHUNKS = 16;
+    private static final byte[] END = new byte[0];
+    // SQLSTATE too_many_connections: сервлет отвечает 503
+    public static final String TOO_MANY_EXPORTS = "53300";
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BulkRepository bulkRepository;
+    private final int maxParallel;
+    private final Semaphore connections;
+
+    public ExportServiceImpl(BulkRepository bulkRepository, int maxParallel, int maxConnections) {
+        this.bulkRepository = bulkRepository;
+        this.maxParallel = maxParallel;
+        this.connections = new Semaphore(Math.max(1, maxConnections));
+    }
+
+    @Override
+    public void export(String entity, boolean csv, int parallel, OutputStream out) throws SQLException, IOException {
+        // место для соединения запроса
+        if (!connections.tryAcquire()) {
+            throw new SQLException("Too many concurrent exports", TOO_MANY_EXPORTS);
+        }
+        int workers = 0;
+        try {
+            if (parallel > 1) {
+                // потоков не больше, чем свободных мест; один поток — обычная выгрузка
+                while (workers < Math.min(parallel, maxParallel) && connections.tryAcquire()) {
+                    workers++;
+                }
+            }
+            int granted = workers > 1 ? workers : 1;
+            try {
+                // снимок экспортируется из транзакции запроса и действует, пока она открыта
+                ConnectionContext.inTransaction(() -> {
+                    try {
+                        exportInTransaction(entity, csv, granted, out);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } finally {
+            connections.release(1 + workers);
+        }
+    }
+
+    /**
+     * Свободные места для соединений выгрузок.
+     */
+    public int getAvailableConnections() {
+        return connections.availablePermits();
+    }
+
+    public static ExportServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    private void exportInTransaction(String entity, boolean csv, int parallel, OutputStream out)
+            throws SQLException, IOException {
+        long[] range = bulkRepository.getExportRange(entity);
+        if (range == null) {
+            // пустая выборка: у CSV остаётся заголовок
+            bulkRepository.export(entity, csv, csv, 1, 0, null, out);
+            return;
+        }
+        long span = range[1] - range[0] + 1;
+        if (parallel <= 1 || span < parallel) {
+            bulkRepository.export(entity, csv, csv, range[0], range[1], null, out);
+            return;
+        }
+
+        String snapshot = bulkRepository.exportSnapshot();
+        List<Part> parts = new ArrayList<>(parallel);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long step = span / parallel;
+        for (int i = 0; i < parallel; i++) {
+            parts.add(new Part(parts, failure));
+        }
+        for (int i = 0; i < parallel; i++) {
+            long from = range[0] + i * step;
+            long to = i == parallel - 1 ? range[1] : from + step - 1;
+            Part part = parts.get(i);
+            boolean header = csv && i == 0;
+            EXECUTOR.execute(() -> part.run(() ->
+                    bulkRepository.export(entity, csv, header, from, to, snapshot, part)));
+        }
+        try {
+            for (Part part : parts) {
+                part.drainTo(out);
+            }
+        } finally {
+            parts.forEach(Part::cancel);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExportTask {
+        void run() throws SQLException, IOException;
+    }
+
+    /**
+     * Выход одного диапазона: COPY пишет в него куски, поток запроса забирает их по порядку.
+     * Первая ошибка любого диапазона общая для всех: её видит поток запроса, остальные диапазоны отменяются.
+     */
+    private static final class Part extends OutputStream {
+
+        private final List<Part> parts;
+        private final AtomicReference<Exception> failure;
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_CHUNKS);
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count;
+        private volatile boolean cancelled;
+
+        private Part(List<Part> parts, AtomicReference<Exception> failure) {
+            this.parts = parts;
+            this.failure = failure;
+        }
+
+        private void run(ExportTask task) {
+            try {
+                task.run();
+                flushChunk();
+            } catch (SQLException | IOException | RuntimeException e) {
+                // отменённый диапазон падает из-за соседа — его ошибка не первопричина
+                if (!cancelled && failure.compareAndSet(null, e)) {
+                    parts.forEach(Part::cancel);
+                }
+            } finally {
+                try {
+                    put(END);
+                } catch (IOException ignored) {
+                    // отменено — читать уже некому
+                }
+            }
+        }
+
+        private void drainTo(OutputStream out) throws SQLException, IOException {
+            try {
+                while (failure.get() == null) {
+                    // отмена очищает очередь, и END может не дойти: ошибку проверяем и по таймауту
+                    byte[] chunk = chunks.poll(100, TimeUnit.MILLISECONDS);
+                    if (chunk == END) {
+                        break;
+                    }
+                    if (chunk != null && failure.get() == null) {
+                        out.write(chunk);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", e);
+            }
+            Exception e = failure.get();
+            if (e instanceof SQLException) {
+                throw (SQLException) e;
+            }
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e != null) {
+                throw (RuntimeException) e;
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            chunks.clear();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (count > 0) {
+                byte[] chunk = new byte[count];
+                System.arraycopy(buffer, 0, chunk, 0, count);
+                count = 0;
+                put(chunk);
+            }
+        }
+
+        // ждём места в очереди, пока выгрузку не отменили
+        private void put(byte[] chunk) throws IOException {
+            try {
+                while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        throw new IOException("Export cancelled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", e);
+            }
+        }
+    }
+}
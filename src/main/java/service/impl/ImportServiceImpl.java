@@ -0,0 +1,288 @@
+package service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.dto.ImportErrorDto;
+import model.dto.ImportResultDto;
+import repository.BulkRepository;
+import repository.impl.BulkRepositoryImp;
+import service.ImportService;
+import util.PropertiesUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Разбирает NDJSON или CSV построчно и сразу передаёт строки в COPY, не накапливая их в памяти.
+ * Строки с ошибками формата отбрасываются здесь, нарушения ссылок и уникальности — в базе;
+ * в ответ попадают счётчики и import.maxErrors ошибок с наименьшими номерами строк, откуда бы они ни пришли.
+ * В CSV первая строка — заголовок с теми же именами полей, что и в JSON; поля с переводом строки не поддерживаются.
+ */
+public class ImportServiceImpl implements ImportService {
+
+    private static final ImportServiceImpl INSTANCE = new ImportServiceImpl(
+            BulkRepositoryImp.getInstance(), PropertiesUtil.getInt("import.maxErrors", 100));
+
+    private static final Field[] EMPLOYEE_FIELDS = {
+            Field.number("id", false),
+            Field.text("firstName", 255, true),
+            Field.text("lastName", 255, true),
+            Field.text("position", 255, true)
+    };
+
+    private static final Field[] TASK_FIELDS = {
+            Field.text("title", 255, true),
+            Field.text("status", 64, false),
+            Field.number("employeeId", true)
+    };
+
+    private static final Field[] EMPLOYEE_ACTIVITY_FIELDS = {
+            Field.number("employeeId", true),
+            Field.number("activityId", true)
+    };
+
+    private final BulkRepository bulkRepository;
+    private final int maxErrors;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ImportServiceImpl(BulkRepository bulkRepository, int maxErrors) {
+        this.bulkRepository = bulkRepository;
+        this.maxErrors = maxErrors;
+    }
+
+    @Override
+    public ImportResultDto importEmployees(BufferedReader body, boolean csv) throws SQLException, IOException {
+        Errors errors = new Errors(maxErrors);
+        long imported = bulkRepository.importEmployees(
+                out -> convert(body, csv, EMPLOYEE_FIELDS, out, errors), errors::add);
+        invalidateIfImported(imported);
+        return errors.toResult(imported);
+    }
+
+    @Override
+    public ImportResultDto importTasks(BufferedReader body, boolean csv) throws SQLException, IOException {
+        Errors errors = new Errors(maxErrors);
+        long imported = bulkRepository.importTasks(
+                out -> convert(body, csv, TASK_FIELDS, out, errors), errors::add);
+        invalidateIfImported(imported);
+        return errors.toResult(imported);
+    }
+
+    @Override
+    public ImportResultDto importEmployeeActivities(BufferedReader body, boolean csv) throws SQLException, IOException {
+        Errors errors = new Errors(maxErrors);
+        long imported = bulkRepository.importEmployeeActivities(
+                out -> convert(body, csv, EMPLOYEE_ACTIVITY_FIELDS, out, errors), errors::add);
+        invalidateIfImported(imported);
+        return errors.toResult(imported);
+    }
+
+    // импорт затрагивает произвольных сотрудников: кеш агрегатов сбрасывается целиком
+    private void invalidateIfImported(long imported) {
+        if (imported > 0) {
+            ChangeEvents.allEmployeesChanged();
+        }
+    }
+
+    public static ImportServiceImpl getInstance() {
+        return INSTANCE;
+    }
+
+    private void convert(BufferedReader body, boolean csv, Field[] fields, Writer out, Errors errors)
+            throws IOException {
+        String[] values = new String[fields.length];
+        StringBuilder row = new StringBuilder(256);
+        int[] columns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = body.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && columns == null) {
+                columns = header(line, fields);
+                continue;
+            }
+            try {
+                if (csv) {
+                    readCsv(line, columns, values);
+                } else {
+                    readJson(line, fields, values);
+                }
+                // строка целиком проверяется до записи в COPY
+                row.setLength(0);
+                row.append(lineNumber);
+                for (int i = 0; i < fields.length; i++) {
+                    row.append(',');
+                    fields[i].append(row, values[i]);
+                }
+                row.append('\n');
+                out.append(row);
+            } catch (JsonProcessingException e) {
+                errors.add(lineNumber, "Malformed JSON");
+            } catch (IllegalArgumentException e) {
+                errors.add(lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    private void readJson(String line, Field[] fields, String[] values) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected JSON object");
+        }
+        for (int i = 0; i < fields.length; i++) {
+            JsonNode value = node.get(fields[i].name);
+            values[i] = value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    private static int[] header(String line, Field[] fields) {
+        List<String> names = parseCsv(line);
+        int[] columns = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            columns[i] = names.indexOf(fields[i].name);
+            if (columns[i] < 0 && fields[i].required) {
+                throw new IllegalArgumentException("CSV header has no column " + fields[i].name);
+            }
+        }
+        return columns;
+    }
+
+    private static void readCsv(String line, int[] columns, String[] values) {
+        List<String> cells = parseCsv(line);
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i] < 0 || columns[i] >= cells.size() ? null : cells.get(columns[i]);
+        }
+    }
+
+    // RFC 4180 в пределах одной строки; пустая ячейка без кавычек — null
+    private static List<String> parseCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                cells.add(cell.length() == 0 && !wasQuoted ? null : cell.toString());
+                cell.setLength(0);
+                wasQuoted = false;
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        cells.add(cell.length() == 0 && !wasQuoted ? null : cell.toString());
+        return cells;
+    }
+
+    private static final class Field {
+
+        private final String name;
+        private final int maxLength;
+        private final boolean required;
+
+        private Field(String name, int maxLength, boolean required) {
+            this.name = name;
+            this.maxLength = maxLength;
+            this.required = required;
+        }
+
+        private static Field text(String name, int maxLength, boolean required) {
+            return new Field(name, maxLength, required);
+        }
+
+        private static Field number(String name, boolean required) {
+            return new Field(name, 0, required);
+        }
+
+        // значение в формате CSV для COPY: NULL — пустая ячейка без кавычек
+        private void append(StringBuilder row, String value) {
+            if (value == null || (required && value.isEmpty())) {
+                if (required) {
+                    throw new IllegalArgumentException(name + " is required");
+                }
+                return;
+            }
+            if (maxLength == 0) {
+                try {
+                    row.append(Long.parseLong(value.trim()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(name + " is not a number");
+                }
+                return;
+            }
+            if (value.codePointCount(0, value.length()) > maxLength) {
+                throw new IllegalArgumentException(name + " is longer than " + maxLength);
+            }
+            if (value.indexOf('\0') >= 0) {
+                throw new IllegalArgumentException(name + " contains NUL character");
+            }
+            row.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    row.append('"');
+                }
+                row.append(c);
+            }
+            row.append('"');
+        }
+    }
+
+    private static final class Errors {
+
+        // ошибки формата приходят при разборе, отказы базы — позже и по более ранним строкам:
+        // держим maxErrors наименьших номеров строк, на вершине кучи — наибольший из них
+        private final PriorityQueue<ImportErrorDto> errors =
+                new PriorityQueue<>(Comparator.comparingLong(ImportErrorDto::getLine).reversed());
+        private final int maxErrors;
+        private long rejected;
+
+        private Errors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void add(long line, String message) {
+            rejected++;
+            if (maxErrors <= 0) {
+                return;
+            }
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportErrorDto(line, message));
+            } else if (line < errors.peek().getLine()) {
+                errors.poll();
+                errors.add(new ImportErrorDto(line, message));
+            }
+        }
+
+        private ImportResultDto toResult(long imported) {
+            List<ImportErrorDto> sorted = new ArrayList<>(errors);
+            sorted.sort(Comparator.comparingLong(ImportErrorDto::getLine));
+            return new ImportResultDto(imported, rejected, sorted);
+        }
+    }
+}
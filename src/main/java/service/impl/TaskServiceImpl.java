@@ -2,6 +2,7 @@ package service.impl;
 
 import model.Employee;
 import model.Tasks;
+import model.dto.PageDto;
 import model.dto.TasksDto;
 import model.mapper.TasksMapper;
 import repository.EmployeeRepository;
@@ -9,6 +10,8 @@ import repository.TasksRepository;
 import repository.impl.EmployeeRepositoryImp;
 import repository.impl.TasksRepositoryImp;
 import service.TasksService;
+import util.PageCursor;
+import util.SingleFlight;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -20,15 +23,22 @@ public class TaskServiceImpl implements TasksService {
 
     private final TasksRepository tasksRepository = TasksRepositoryImp.getInstance();
     private final EmployeeRepository employeeRepository = EmployeeRepositoryImp.getInstance();
+    private final SingleFlight<List<TasksDto>> tasksFlights = new SingleFlight<>();
 
     private TaskServiceImpl() {
+        ChangeEvents.forgetOnEmployeeChange(tasksFlights);
     }
 
     @Override
     public TasksDto addTasks(TasksDto tasksDto, long id) throws SQLException {
         Employee employee = employeeRepository.getEmployeeById(id);
         Tasks tasks = TasksMapper.toTasks(tasksDto,0);
-        Tasks savedTasks = tasksRepository.addTask(tasks,id);
+        Tasks savedTasks;
+        try {
+            savedTasks = tasksRepository.addTask(tasks,id);
+        } finally {
+            ChangeEvents.employeeChanged(id);
+        }
         savedTasks.setEmployee(employee);
 
         return TasksMapper.toTasksDto(savedTasks);
@@ -40,26 +50,112 @@ public class TaskServiceImpl implements TasksService {
         Tasks tasks = TasksMapper.toTasks(tasksDto,id);
         tasks.setEmployee(oldTasks.getEmployee());
 
-        return TasksMapper.toTasksDto(tasksRepository.updateTask(tasks,id));
+        try {
+            return TasksMapper.toTasksDto(tasksRepository.updateTask(tasks,id));
+        } finally {
+            invalidateEmployee(oldTasks);
+        }
     }
 
     @Override
     public void deleteTasks(long id) throws SQLException {
-        tasksRepository.getTasksByEmployeeId(id);
-        tasksRepository.deleteTask(id);
+        // задача читается ради её сотрудника: сбрасывается только его агрегат в кеше
+        Tasks tasks = tasksRepository.getTaskById(id);
+        try {
+            tasksRepository.deleteTask(id);
+        } finally {
+            invalidateEmployee(tasks);
+        }
     }
 
     @Override
     public List<TasksDto> getTasksByEmployeeId(long id) throws SQLException {
-        Employee employee = employeeRepository.getEmployeeById(id);
-        List<Tasks> tasks = tasksRepository.getTasksByEmployeeId(id);
+        // одновременные запросы задач одного сотрудника идут в базу один раз
+        return tasksFlights.load(id, () -> {
+            Employee employee = employeeRepository.getEmployeeById(id);
+            List<Tasks> tasks = tasksRepository.getTasksByEmployeeId(id);
+
+            return tasks.stream()
+                    .peek(task -> task.setEmployee(employee))
+                    .map(task-> TasksMapper.toTasksDto(task))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public List<TasksDto> getTasksByEmployeeId(long id, boolean withEmployee) throws SQLException {
+        if (withEmployee) {
+            return getTasksByEmployeeId(id);
+        }
+        Employee employee = new Employee(id, null, null, null);
+        return tasksRepository.getTasksByEmployeeId(id).stream()
+                .peek(task -> task.setEmployee(employee))
+                .map(TasksMapper::toTasksDto)
+                .collect(Collectors.toList());
+    }
 
-        return tasks.stream()
+    @Override
+    public List<TasksDto> getTasksByEmployeeId(long id, boolean withEmployee, boolean includeArchived)
+            throws SQLException {
+        if (!includeArchived) {
+            return getTasksByEmployeeId(id, withEmployee);
+        }
+        Employee employee = withEmployee ? employeeRepository.getEmployeeById(id) : new Employee(id, null, null, null);
+        return tasksRepository.getTasksWithArchivedByEmployeeId(id).stream()
                 .peek(task -> task.setEmployee(employee))
-                .map(task-> TasksMapper.toTasksDto(task))
+                .map(TasksMapper::toTasksDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public PageDto<TasksDto> getTasksByEmployeeId(long id, long afterId, int limit, boolean withEmployee,
+                                                  boolean includeArchived) throws SQLException {
+        // без имени сотрудника в ответе его запрос не нужен
+        Employee employee = withEmployee ? employeeRepository.getEmployeeById(id) : new Employee(id, null, null, null);
+        // берём на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<Tasks> tasks = includeArchived
+                ? tasksRepository.getTasksWithArchivedByEmployeeId(id, afterId, limit + 1)
+                : tasksRepository.getTasksByEmployeeId(id, afterId, limit + 1);
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            nextCursor = PageCursor.encode(tasks.get(limit - 1).getId());
+        }
+        List<TasksDto> items = tasks.stream()
+                .peek(task -> task.setEmployee(employee))
+                .map(TasksMapper::toTasksDto)
+                .collect(Collectors.toList());
+        return new PageDto<>(items, nextCursor);
+    }
+
+    @Override
+    public PageDto<TasksDto> getTasksByStatus(String status, long afterId, int limit, boolean withEmployee)
+            throws SQLException {
+        List<Tasks> tasks = tasksRepository.getTasksByStatus(status, afterId, limit + 1, withEmployee);
+        String nextCursor = null;
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            nextCursor = PageCursor.encode(tasks.get(limit - 1).getId());
+        }
+        List<TasksDto> items = tasks.stream()
+                .map(TasksMapper::toTasksDto)
+                .collect(Collectors.toList());
+        return new PageDto<>(items, nextCursor);
+    }
+
+    @Override
+    public byte[] getTasksJsonByEmployeeId(long id) throws SQLException {
+        return tasksRepository.getTasksJsonByEmployeeId(id);
+    }
+
+    private void invalidateEmployee(Tasks tasks) {
+        if (tasks.getEmployee() != null && tasks.getEmployee().getId() != null) {
+            ChangeEvents.employeeChanged(tasks.getEmployee().getId());
+        } else {
+            ChangeEvents.allEmployeesChanged();
+        }
+    }
+
     public static TaskServiceImpl getInstance() {
         return INSTANCE;
     }
@@ -1,5 +1,6 @@
 package servlet;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -7,10 +8,13 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import model.dto.ActivityDto;
+import model.dto.PageDto;
 import service.ActivityService;
 import service.impl.ActivityServiceImpl;
+import util.PropertiesUtil;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -18,25 +22,81 @@ import java.util.List;
 public class ActivityServlet  extends HttpServlet {
     private final ActivityService activityService = ActivityServiceImpl.getInstance();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean databaseJson = PropertiesUtil.getBoolean("rest.databaseJson.activity", false);
+    private final boolean streaming = PropertiesUtil.getBoolean("rest.streaming.activity", true);
+    private final JsonResponseCache jsonCache = JsonResponseCache.getInstance();
 
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String pathInfo = req.getPathInfo();
+        PageParams page;
         try {
-            if (pathInfo == null || pathInfo.equals("/")) {
-                List<ActivityDto> activities = activityService.getAllActivities();
+            page = PageParams.from(req);
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid limit or cursor");
+            return;
+        }
+        try {
+            FieldSelection selection = FieldSelection.from(req);
+            if (page != null && (pathInfo == null || pathInfo.equals("/"))) {
+                PageDto<ActivityDto> activities = activityService.getActivities(page.afterId(), page.limit(),
+                        selection.includes("employees", "employees"));
+                resp.setContentType("application/json");
+                selection.write(objectMapper, resp.getOutputStream(), activities);
+            } else if (pathInfo == null || pathInfo.equals("/")) {
+                if (jsonCache.isEnabled() && selection.isDefault()) {
+                    // в кеше тело целиком, поэтому потоковая запись не нужна
+                    JsonResponses.writeCached(req, resp, jsonCache.activities(() -> databaseJson
+                            ? activityService.getAllActivitiesJson()
+                            : objectMapper.writeValueAsBytes(activityService.getAllActivities())));
+                    return;
+                }
+                if (databaseJson && selection.isDefault()) {
+                    JsonResponses.writeRaw(resp, activityService.getAllActivitiesJson());
+                    return;
+                }
+                if (streaming && selection.isDefault()) {
+                    streamActivities(resp);
+                    return;
+                }
+                List<ActivityDto> activities = selection.isDefault()
+                        ? activityService.getAllActivities()
+                        : activityService.getAllActivities(selection.includes("employees", "employees"));
                 resp.setContentType("application/json");
-                objectMapper.writeValue(resp.getOutputStream(), activities);
+                selection.write(objectMapper, resp.getOutputStream(), activities);
             } else {
                 long id = Long.parseLong(pathInfo.substring(1));
                 ActivityDto activity = activityService.getActivityById(id);
                 resp.setContentType("application/json");
-                objectMapper.writeValue(resp.getOutputStream(), activity);
+                selection.write(objectMapper, resp.getOutputStream(), activity);
             }
         } catch (IllegalArgumentException e) {
            resp.sendError(404, "Employee Not Found");
         } catch (SQLException e){
-            resp.sendError(500, "Server Error");
+            // при потоковой записи ответ может быть уже отправлен — тогда клиент получит оборванный JSON
+            if (!resp.isCommitted()) {
+                resp.sendError(500, "Server Error");
+            }
+        }
+    }
+
+    private void streamActivities(HttpServletResponse resp) throws IOException, SQLException {
+        resp.setContentType("application/json");
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(resp.getOutputStream())) {
+            generator.writeStartArray();
+            try {
+                // каждая активность уходит клиенту, как только прочитаны все её строки
+                activityService.streamAllActivities(activity -> {
+                    try {
+                        objectMapper.writeValue(generator, activity);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
         }
     }
 
@@ -0,0 +1,86 @@
+package servlet;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import migration.Migrations;
+import repository.impl.TaskStatusRepositoryImp;
+import service.ArchiveService;
+import service.impl.ArchiveServiceImpl;
+import util.ConnectionManager;
+import util.PropertiesUtil;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Приводит схему к последней версии до обработки первого запроса, загружает справочник статусов,
+ * запускает фоновую архивацию задач и при остановке сначала останавливает её, а потом закрывает пул.
+ */
+@WebListener
+public class ApplicationListener implements ServletContextListener {
+
+    private static final String MIGRATE_KEY = "db.migrate";
+    private static final String ARCHIVE_ENABLED_KEY = "archive.enabled";
+    private static final String ARCHIVE_INTERVAL_KEY = "archive.intervalMinutes";
+
+    private final ArchiveService archiveService = ArchiveServiceImpl.getInstance();
+    private ScheduledExecutorService archiver;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        if (PropertiesUtil.getBoolean(MIGRATE_KEY, true)) {
+            try {
+                int applied = Migrations.migrate();
+                context.log("Applied " + applied + " schema migration(s)");
+            } catch (SQLException e) {
+                // без актуальной схемы приложение не должно стартовать
+                throw new IllegalStateException("Schema migration failed", e);
+            }
+        }
+        try {
+            TaskStatusRepositoryImp.getInstance().load();
+        } catch (SQLException e) {
+            // справочник догрузится при первом обращении
+            context.log("Task status dictionary not loaded", e);
+        }
+        if (PropertiesUtil.getBoolean(ARCHIVE_ENABLED_KEY, false)) {
+            long interval = PropertiesUtil.getLong(ARCHIVE_INTERVAL_KEY, 10L);
+            archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "task-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            archiver.scheduleWithFixedDelay(() -> archive(context), interval, interval, TimeUnit.MINUTES);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        if (archiver != null) {
+            archiver.shutdownNow();
+            try {
+                archiver.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ConnectionManager.shutdown();
+    }
+
+    // исключение из задачи отменило бы все следующие запуски
+    private void archive(ServletContext context) {
+        try {
+            long archived = archiveService.archiveCompletedTasks();
+            if (archived > 0) {
+                context.log("Archived " + archived + " task(s)");
+            }
+        } catch (SQLException | RuntimeException e) {
+            context.log("Task archiving failed", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package servlet;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import util.ConnectionContext;
+
+import java.io.IOException;
+
+@WebFilter("/*")
+public class ConnectionContextFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String method = ((HttpServletRequest) request).getMethod();
+        boolean readOnly = "GET".equals(method) || "HEAD".equals(method);
+
+        ConnectionContext.open(readOnly);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ConnectionContext.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package servlet;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -9,32 +10,89 @@ import jakarta.servlet.http.HttpServletResponse;
 import model.dto.EmployeeDto;
 import service.EmployeeService;
 import service.impl.EmployeeServiceImpl;
+import util.PropertiesUtil;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.SQLException;
 import java.util.List;
 
 
 @WebServlet("/employee/*")
 public class EmployeeServlet  extends HttpServlet {
+    private static final TypeReference<List<Long>> ACTIVITY_LIST = new TypeReference<>() {};
+    private static final String NDJSON = "application/x-ndjson";
     private final EmployeeService employeeService = EmployeeServiceImpl.getInstance();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean databaseJson = PropertiesUtil.getBoolean("rest.databaseJson.employee", false);
+    private final JsonResponseCache jsonCache = JsonResponseCache.getInstance();
 
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String pathInfo = req.getPathInfo();
         try {
-            if (pathInfo == null || pathInfo.equals("/")) {
+            if ((pathInfo == null || pathInfo.equals("/")) && req.getParameter("activityId") != null) {
+                long activityId = Long.parseLong(req.getParameter("activityId"));
+                if (acceptsNdjson(req)) {
+                    streamEmployees(resp, activityId);
+                    return;
+                }
+                List<EmployeeDto> employees = employeeService.getEmployeesByActivityId(activityId);
+                resp.setContentType("application/json");
+                objectMapper.writeValue(resp.getOutputStream(), employees);
+            } else if (pathInfo == null || pathInfo.equals("/")) {
                 resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing employee id");
             } else {
                 long id = Long.parseLong(pathInfo.substring(1));
-                EmployeeDto employee = employeeService.getEmployeeById(id);
+                FieldSelection selection = FieldSelection.from(req);
+                if (jsonCache.isEnabled() && selection.isDefault()) {
+                    JsonResponses.writeCached(req, resp, jsonCache.employee(id, () -> databaseJson
+                            ? employeeService.getEmployeeJson(id)
+                            : objectMapper.writeValueAsBytes(employeeService.getEmployeeById(id))));
+                    return;
+                }
+                if (databaseJson && selection.isDefault()) {
+                    JsonResponses.writeRaw(resp, employeeService.getEmployeeJson(id));
+                    return;
+                }
+                EmployeeDto employee = selection.isDefault()
+                        ? employeeService.getEmployeeById(id)
+                        : employeeService.getEmployeeById(id,
+                                selection.includes("activities", "activity"),
+                                selection.includes("tasks", "tasks"));
                 resp.setContentType("application/json");
-                objectMapper.writeValue(resp.getOutputStream(), employee);
+                selection.write(objectMapper, resp.getOutputStream(), employee);
             }
         } catch (IllegalArgumentException e) {
            resp.sendError(404, "Employee Not Found");
         } catch (SQLException e){
-            resp.sendError(500, "Server Error");
+            // при потоковой записи ответ может быть уже отправлен
+            if (!resp.isCommitted()) {
+                resp.sendError(500, "Server Error");
+            }
+        }
+    }
+
+    private static boolean acceptsNdjson(HttpServletRequest req) {
+        String accept = req.getHeader("Accept");
+        return "ndjson".equals(req.getParameter("format"))
+               || (accept != null && accept.contains(NDJSON));
+    }
+
+    // по сотруднику на строку; каждая строка сразу уходит клиенту, в памяти держится один сотрудник
+    private void streamEmployees(HttpServletResponse resp, long activityId) throws IOException, SQLException {
+        resp.setContentType(NDJSON);
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, resp.getOutputStream())) {
+            try {
+                employeeService.streamEmployeesByActivityId(activityId, employee -> {
+                    try {
+                        writer.write(employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
         }
     }
 
@@ -42,7 +100,7 @@ public class EmployeeServlet  extends HttpServlet {
     public void doPost(HttpServletRequest req, HttpServletResponse resp) throws  IOException {
         try{
             EmployeeDto employeeDto = objectMapper.readValue(req.getInputStream(), EmployeeDto.class);
-            List<Long> activityList = objectMapper.readValue(req.getParameter("activities"), List.class);
+            List<Long> activityList = objectMapper.readValue(req.getParameter("activities"), ACTIVITY_LIST);
             EmployeeDto newEmployee = employeeService.addEmployee(employeeDto, activityList);
             resp.setContentType("application/json");
             objectMapper.writeValue(resp.getOutputStream(), newEmployee);
@@ -0,0 +1,60 @@
+package servlet;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import service.ExportService;
+import service.impl.ExportServiceImpl;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * GET /export/employee, /export/task, /export/employee-activity.
+ * ?format=csv|ndjson (по умолчанию csv), ?parallel=N — выгрузить N диапазонами id одновременно.
+ */
+@WebServlet("/export/*")
+public class ExportServlet extends HttpServlet {
+    private final ExportService exportService = ExportServiceImpl.getInstance();
+
+    @Override
+    public void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String pathInfo = req.getPathInfo();
+        if (pathInfo == null || pathInfo.equals("/")) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing export name");
+            return;
+        }
+        String entity = pathInfo.substring(1);
+        boolean csv = !"ndjson".equals(req.getParameter("format"));
+        int parallel;
+        try {
+            String parallelParam = req.getParameter("parallel");
+            parallel = parallelParam == null ? 1 : Integer.parseInt(parallelParam);
+        } catch (NumberFormatException e) {
+            parallel = 0;
+        }
+        if (parallel < 1) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid parallel");
+            return;
+        }
+        try {
+            resp.setContentType(csv ? "text/csv; charset=UTF-8" : "application/x-ndjson");
+            resp.setHeader("Content-Disposition",
+                    "attachment; filename=\"" + entity + (csv ? ".csv" : ".ndjson") + "\"");
+            exportService.export(entity, csv, parallel, resp.getOutputStream());
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Export Not Found");
+        } catch (SQLException e){
+            if (ExportServiceImpl.TOO_MANY_EXPORTS.equals(e.getSQLState())) {
+                resp.setHeader("Retry-After", "5");
+                resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too Many Exports");
+                return;
+            }
+            // выгрузка могла уже начаться — тогда клиент получит оборванный файл
+            if (!resp.isCommitted()) {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server Error");
+            }
+        }
+    }
+}
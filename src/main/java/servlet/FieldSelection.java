@@ -0,0 +1,101 @@
+package servlet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServletRequest;
+import model.dto.PageDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Параметры ?fields= и ?include= GET-запросов.
+ * fields — какие поля объекта вернуть, include — какие связи загрузить.
+ * Связь, которая не попадёт в ответ, сервис не запрашивает из базы вовсе.
+ * Без параметров ответ прежний: все поля и все связи.
+ */
+public final class FieldSelection {
+
+    private final Set<String> fields;
+    private final Set<String> include;
+    private final Set<String> omitted = new HashSet<>();
+
+    private FieldSelection(Set<String> fields, Set<String> include) {
+        this.fields = fields;
+        this.include = include;
+    }
+
+    public static FieldSelection from(HttpServletRequest req) {
+        return new FieldSelection(parse(req.getParameter("fields")), parse(req.getParameter("include")));
+    }
+
+    public boolean isDefault() {
+        return fields == null && include == null;
+    }
+
+    /**
+     * Нужна ли связь relation, которая в JSON представлена полями relationFields.
+     * Если нет, эти поля убираются из ответа при записи.
+     */
+    public boolean includes(String relation, String... relationFields) {
+        boolean included = include == null || include.contains(relation);
+        if (included && fields != null) {
+            included = false;
+            for (String field : relationFields) {
+                included |= fields.contains(field);
+            }
+        }
+        if (!included) {
+            omitted.addAll(Set.of(relationFields));
+        }
+        return included;
+    }
+
+    public void write(ObjectMapper objectMapper, OutputStream out, Object value) throws IOException {
+        if (isDefault()) {
+            objectMapper.writeValue(out, value);
+            return;
+        }
+        JsonNode tree = objectMapper.valueToTree(value);
+        // у страницы фильтруются элементы, а не сама обёртка
+        filter(value instanceof PageDto ? tree.get("items") : tree);
+        objectMapper.writeValue(out, tree);
+    }
+
+    private void filter(JsonNode node) {
+        if (node == null) {
+            return;
+        }
+        if (node.isArray()) {
+            node.forEach(this::filter);
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        Iterator<String> names = ((ObjectNode) node).fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (omitted.contains(name) || (fields != null && !fields.contains(name))) {
+                names.remove();
+            }
+        }
+    }
+
+    private static Set<String> parse(String param) {
+        if (param == null) {
+            return null;
+        }
+        Set<String> values = new HashSet<>();
+        for (String value : param.split(",")) {
+            if (!value.isBlank()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+}
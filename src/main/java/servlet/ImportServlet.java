@@ -0,0 +1,54 @@
+package servlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import model.dto.ImportResultDto;
+import service.ImportService;
+import service.impl.ImportServiceImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * POST /import/employee, /import/task, /import/employee-activity.
+ * Тело — NDJSON (application/x-ndjson) или CSV с заголовком (text/csv), читается потоком.
+ */
+@WebServlet("/import/*")
+public class ImportServlet extends HttpServlet {
+    private final ImportService importService = ImportServiceImpl.getInstance();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String pathInfo = req.getPathInfo();
+        String contentType = req.getContentType();
+        boolean csv = contentType != null && contentType.startsWith("text/csv");
+        if (req.getCharacterEncoding() == null) {
+            req.setCharacterEncoding("UTF-8");
+        }
+        try {
+            BufferedReader body = req.getReader();
+            ImportResultDto result;
+            if ("/employee".equals(pathInfo)) {
+                result = importService.importEmployees(body, csv);
+            } else if ("/task".equals(pathInfo)) {
+                result = importService.importTasks(body, csv);
+            } else if ("/employee-activity".equals(pathInfo)) {
+                result = importService.importEmployeeActivities(body, csv);
+            } else {
+                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown import target");
+                return;
+            }
+            resp.setContentType("application/json");
+            objectMapper.writeValue(resp.getOutputStream(), result);
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (SQLException e){
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server Error");
+        }
+    }
+}
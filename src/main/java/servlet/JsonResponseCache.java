@@ -0,0 +1,134 @@
+package servlet;
+
+import service.ChangeListener;
+import service.impl.ChangeEvents;
+import util.PropertiesUtil;
+import util.TinyLfuCache;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Готовые тела ответов (UTF-8 JSON) для GET /employee/{id} и GET /activity без параметров:
+ * при попадании ответ — одна запись массива байт, без маппинга и сериализации.
+ * Сбрасывается по {@link ChangeEvents} вместе с кешами сервисов.
+ * Держит только ответы с выборкой полей по умолчанию.
+ */
+public final class JsonResponseCache implements ChangeListener {
+
+    private static final JsonResponseCache INSTANCE = new JsonResponseCache(
+            PropertiesUtil.getBoolean("rest.jsonCache.enabled", false),
+            PropertiesUtil.getLong("rest.jsonCache.maxBytes", 16L * 1024 * 1024));
+
+    static {
+        if (INSTANCE.enabled) {
+            ChangeEvents.addListener(INSTANCE);
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final TinyLfuCache<CachedJson> employees;
+    private volatile CachedJson activities;
+    // растёт при каждом сбросе: тело, собранное до сброса, в кеше не останется
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Сам на {@link ChangeEvents} не подписывается: это делает только общий экземпляр.
+     */
+    public JsonResponseCache(boolean enabled, long maxBytes) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.employees = enabled
+                ? new TinyLfuCache<>(maxBytes, (int) Math.min(maxBytes / 1_024, 65_536), json -> json.body.length)
+                : null;
+    }
+
+    public static JsonResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CachedJson employee(long id, Loader loader) throws SQLException, IOException {
+        CachedJson cached = employees.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = generation.get();
+        CachedJson loaded = new CachedJson(loader.load());
+        employees.put(id, loaded);
+        if (generation.get() != stamp) {
+            employees.invalidate(id);
+        }
+        return loaded;
+    }
+
+    public CachedJson activities(Loader loader) throws SQLException, IOException {
+        CachedJson cached = activities;
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = generation.get();
+        CachedJson loaded = new CachedJson(loader.load());
+        // список целиком; слишком большой не держим, чтобы не вытеснить сотрудников
+        if (loaded.body.length <= maxBytes / 4) {
+            activities = loaded;
+            if (generation.get() != stamp) {
+                activities = null;
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void employeeChanged(long employeeId) {
+        generation.incrementAndGet();
+        employees.invalidate(employeeId);
+        // в списке активностей есть сотрудники
+        activities = null;
+    }
+
+    @Override
+    public void allEmployeesChanged() {
+        generation.incrementAndGet();
+        employees.invalidateAll();
+        activities = null;
+    }
+
+    @Override
+    public void activitiesChanged() {
+        generation.incrementAndGet();
+        activities = null;
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        byte[] load() throws SQLException, IOException;
+    }
+
+    public static final class CachedJson {
+
+        private final byte[] body;
+        private final String etag;
+
+        public CachedJson(byte[] body) {
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            this.body = body;
+            this.etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
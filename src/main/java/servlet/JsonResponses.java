@@ -0,0 +1,32 @@
+package servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+public final class JsonResponses {
+
+    private JsonResponses() {
+    }
+
+    public static void writeRaw(HttpServletResponse resp, byte[] json) throws IOException {
+        resp.setContentType("application/json");
+        resp.setContentLength(json.length);
+        resp.getOutputStream().write(json);
+    }
+
+    /**
+     * Готовое тело с ETag; при совпадении If-None-Match — 304 без тела.
+     */
+    public static void writeCached(HttpServletRequest req, HttpServletResponse resp, JsonResponseCache.CachedJson json)
+            throws IOException {
+        resp.setHeader("ETag", json.getEtag());
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(json.getEtag()) || ifNoneMatch.trim().equals("*"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        writeRaw(resp, json.getBody());
+    }
+}
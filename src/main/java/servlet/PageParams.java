@@ -0,0 +1,52 @@
+package servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import util.PageCursor;
+import util.PropertiesUtil;
+
+/**
+ * Параметры ?limit= и ?cursor= списочных GET-запросов.
+ * Если ни один не передан, эндпоинт отвечает как раньше — полным списком.
+ */
+final class PageParams {
+
+    private static final int DEFAULT_LIMIT = PropertiesUtil.getInt("rest.page.defaultLimit", 50);
+    private static final int MAX_LIMIT = PropertiesUtil.getInt("rest.page.maxLimit", 500);
+
+    private final long afterId;
+    private final int limit;
+
+    private PageParams(long afterId, int limit) {
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    static PageParams from(HttpServletRequest req) {
+        String limitParam = req.getParameter("limit");
+        String cursorParam = req.getParameter("cursor");
+        if (limitParam == null && cursorParam == null) {
+            return null;
+        }
+        int limit = limitParam == null ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+        long afterId = cursorParam == null || cursorParam.isEmpty() ? 0 : PageCursor.decode(cursorParam);
+        return new PageParams(afterId, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Первая страница по умолчанию — для эндпоинтов, которые отдают только постранично.
+     */
+    static PageParams first() {
+        return new PageParams(0, Math.min(DEFAULT_LIMIT, MAX_LIMIT));
+    }
+
+    long afterId() {
+        return afterId;
+    }
+
+    int limit() {
+        return limit;
+    }
+}
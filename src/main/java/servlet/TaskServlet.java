@@ -7,9 +7,11 @@ import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import model.dto.PageDto;
 import model.dto.TasksDto;
 import service.TasksService;
 import service.impl.TaskServiceImpl;
+import util.PropertiesUtil;
 
 import java.io.IOException;
 import java.sql.SQLException;
@@ -19,18 +21,56 @@ import java.util.List;
 public class TaskServlet extends HttpServlet {
     private final TasksService tasksService = TaskServiceImpl.getInstance();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean databaseJson = PropertiesUtil.getBoolean("rest.databaseJson.task", false);
 
     @Override
     public void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String pathInfo = req.getPathInfo();
+        // архив подмешивается только по явному запросу
+        boolean includeArchived = Boolean.parseBoolean(req.getParameter("includeArchived"));
+        PageParams page;
         try {
-            if(pathInfo == null || pathInfo.equals("/")) {
+            page = PageParams.from(req);
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid limit or cursor");
+            return;
+        }
+        try {
+            if ((pathInfo == null || pathInfo.equals("/")) && req.getParameter("status") != null) {
+                // выборка по статусу среди всех сотрудников всегда постраничная
+                PageParams statusPage = page == null ? PageParams.first() : page;
+                FieldSelection selection = FieldSelection.from(req);
+                PageDto<TasksDto> tasks = tasksService.getTasksByStatus(req.getParameter("status"),
+                        statusPage.afterId(), statusPage.limit(), selection.includes("employee", "firstName", "lastName"));
+                resp.setContentType("application/json");
+                selection.write(objectMapper, resp.getOutputStream(), tasks);
+            } else if(pathInfo == null || pathInfo.equals("/")) {
                 resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing employee id");
+            } else if (page != null) {
+                long id = Long.parseLong(pathInfo.substring(1));
+                FieldSelection selection = FieldSelection.from(req);
+                PageDto<TasksDto> tasks = tasksService.getTasksByEmployeeId(id, page.afterId(), page.limit(),
+                        selection.includes("employee", "firstName", "lastName"), includeArchived);
+                resp.setContentType("application/json");
+                selection.write(objectMapper, resp.getOutputStream(), tasks);
             } else {
                 long id = Long.parseLong(pathInfo.substring(1));
-                List<TasksDto> tasks = tasksService.getTasksByEmployeeId(id);
+                FieldSelection selection = FieldSelection.from(req);
+                if (databaseJson && selection.isDefault() && !includeArchived) {
+                    JsonResponses.writeRaw(resp, tasksService.getTasksJsonByEmployeeId(id));
+                    return;
+                }
+                List<TasksDto> tasks;
+                if (includeArchived) {
+                    tasks = tasksService.getTasksByEmployeeId(id,
+                            selection.includes("employee", "firstName", "lastName"), true);
+                } else if (selection.isDefault()) {
+                    tasks = tasksService.getTasksByEmployeeId(id);
+                } else {
+                    tasks = tasksService.getTasksByEmployeeId(id, selection.includes("employee", "firstName", "lastName"));
+                }
                 resp.setContentType("application/json");
-                objectMapper.writeValue(resp.getOutputStream(), tasks);
+                selection.write(objectMapper, resp.getOutputStream(), tasks);
             }
         } catch (IllegalArgumentException e) {
             resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Tasks Not Found");
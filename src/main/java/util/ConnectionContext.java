@@ -0,0 +1,207 @@
+package util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Привязка одного соединения к текущему потоку на время запроса.
+ * Пока контекст открыт, {@link ConnectionManager#get()} отдаёт одно и то же соединение,
+ * а close() в репозиториях его не освобождает — это делает {@link #close()}.
+ * Соединение берётся из пула лениво, при первом обращении.
+ */
+public final class ConnectionContext {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final String REPEATABLE_READ = "SET TRANSACTION ISOLATION LEVEL REPEATABLE READ";
+
+    private ConnectionContext() {
+    }
+
+    public static void open(boolean readOnly) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.depth++;
+            return;
+        }
+        CURRENT.set(new Scope(readOnly));
+    }
+
+    public static void close() {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        if (--scope.depth > 0) {
+            return;
+        }
+        CURRENT.remove();
+        scope.release();
+    }
+
+    public static boolean isOpen() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Выполняет work в одной транзакции на соединении контекста.
+     * Если транзакция уже идёт (например, снимок GET-запроса), work к ней присоединяется.
+     */
+    public static <T> T inTransaction(SqlSupplier<T> work) throws SQLException {
+        Scope scope = CURRENT.get();
+        if (scope != null && scope.transactional) {
+            return work.get();
+        }
+        boolean ownScope = scope == null;
+        if (ownScope) {
+            scope = new Scope(false);
+            CURRENT.set(scope);
+        }
+        try {
+            scope.beginTransaction();
+            T result = work.get();
+            scope.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            scope.rollback();
+            throw e;
+        } finally {
+            if (ownScope) {
+                CURRENT.remove();
+                scope.release();
+            } else {
+                scope.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Идёт ли в потоке транзакция, которая уже взяла соединение: её чтения могут видеть снимок,
+     * сделанный раньше, чем вызывающий код начал загрузку.
+     */
+    public static boolean isSnapshotTaken() {
+        Scope scope = CURRENT.get();
+        return scope != null && scope.transactional && scope.connection != null;
+    }
+
+    static Connection current(ConnectionPool pool) throws SQLException {
+        Scope scope = CURRENT.get();
+        return scope == null ? null : scope.connection(pool);
+    }
+
+    private static final class Scope {
+
+        private final boolean readOnly;
+        private boolean transactional;
+        private int depth = 1;
+        private Connection connection;
+        private Connection view;
+
+        private Scope(boolean readOnly) {
+            this.readOnly = readOnly;
+            this.transactional = readOnly;
+        }
+
+        private void beginTransaction() throws SQLException {
+            transactional = true;
+            if (connection != null) {
+                connection.setAutoCommit(false);
+            }
+        }
+
+        private void endTransaction() {
+            transactional = false;
+            try {
+                if (connection != null) {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException ignored) {
+                // пул сбросит состояние соединения при возврате
+            }
+        }
+
+        private void commit() throws SQLException {
+            if (connection != null) {
+                connection.commit();
+            }
+        }
+
+        private void rollback() {
+            try {
+                if (connection != null) {
+                    connection.rollback();
+                }
+            } catch (SQLException ignored) {
+                // исходная ошибка важнее
+            }
+        }
+
+        private Connection connection(ConnectionPool pool) throws SQLException {
+            if (view != null) {
+                return view;
+            }
+            Connection borrowed = pool.borrow();
+            try {
+                if (transactional) {
+                    borrowed.setAutoCommit(false);
+                }
+                if (readOnly) {
+                    // все чтения запроса видят один снимок данных
+                    borrowed.setReadOnly(true);
+                    try (var statement = borrowed.createStatement()) {
+                        statement.execute(REPEATABLE_READ);
+                    }
+                }
+            } catch (SQLException e) {
+                borrowed.close();
+                throw e;
+            }
+            connection = borrowed;
+            view = nonClosing(borrowed);
+            return view;
+        }
+
+        private void release() {
+            if (connection == null) {
+                return;
+            }
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } catch (SQLException ignored) {
+                // пул откатит транзакцию при возврате соединения
+            } finally {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // соединение уже возвращено
+                }
+            }
+        }
+
+        private static Connection nonClosing(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionContext.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
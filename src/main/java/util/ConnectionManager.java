@@ -1,7 +1,6 @@
 package util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public final class ConnectionManager {
@@ -10,9 +9,18 @@ public final class ConnectionManager {
     private static final String URL_KEY= "db.url";
     private static final String USERNAME_KEY= "db.username";
     private static final String PASSWORD_KEY= "db.password";
+    private static final String POOL_MIN_SIZE_KEY = "db.pool.minSize";
+    private static final String POOL_MAX_SIZE_KEY = "db.pool.maxSize";
+    private static final String POOL_BORROW_TIMEOUT_KEY = "db.pool.borrowTimeoutMs";
+    private static final String POOL_IDLE_TIMEOUT_KEY = "db.pool.idleTimeoutMs";
+    private static final String POOL_MAX_LIFETIME_KEY = "db.pool.maxLifetimeMs";
+    private static final String STATEMENT_CACHE_SIZE_KEY = "db.pool.statementCacheSize";
+
+    private static final ConnectionPool POOL;
 
     static {
         loadDriver();
+        POOL = createPool();
     }
 
     private static void loadDriver() {
@@ -23,18 +31,40 @@ public final class ConnectionManager {
         }
     }
 
+    private static ConnectionPool createPool() {
+        return new ConnectionPool(
+                PropertiesUtil.get(URL_KEY),
+                PropertiesUtil.get(USERNAME_KEY),
+                PropertiesUtil.get(PASSWORD_KEY),
+                PropertiesUtil.getInt(POOL_MIN_SIZE_KEY, 2),
+                PropertiesUtil.getInt(POOL_MAX_SIZE_KEY, 10),
+                PropertiesUtil.getLong(POOL_BORROW_TIMEOUT_KEY, 5_000L),
+                PropertiesUtil.getLong(POOL_IDLE_TIMEOUT_KEY, 600_000L),
+                PropertiesUtil.getLong(POOL_MAX_LIFETIME_KEY, 1_800_000L),
+                PropertiesUtil.getInt(STATEMENT_CACHE_SIZE_KEY, 64)
+        );
+    }
+
     private ConnectionManager() {
     }
 
     public static Connection get() {
        try{
-           return DriverManager.getConnection(
-                   PropertiesUtil.get(URL_KEY),
-                   PropertiesUtil.get(USERNAME_KEY),
-                   PropertiesUtil.get(PASSWORD_KEY)
-           );
+           Connection bound = ConnectionContext.current(POOL);
+           if (bound != null) {
+               return bound;
+           }
+           return POOL.borrow();
        } catch (SQLException e) {
            throw new RuntimeException(e);
        }
     }
-}
\ No newline at end of file
+
+    public static ConnectionPool getPool() {
+        return POOL;
+    }
+
+    public static void shutdown() {
+        POOL.close();
+    }
+}
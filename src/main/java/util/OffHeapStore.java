@@ -0,0 +1,255 @@
+package util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Хранилище байтовых записей по ключу long вне кучи: сегменты — direct ByteBuffer,
+ * индекс — {@link LongLongHashMap} ключ → адрес (номер сегмента << 32 | смещение).
+ * Сборщик мусора видит только сегменты и массивы индекса, а не каждую запись.
+ * Записи дописываются в конец; место перезаписанных и удалённых освобождается уплотнением,
+ * когда сегменты кончаются. Если и после уплотнения места нет, запись не сохраняется.
+ */
+public final class OffHeapStore {
+
+    private static final long ABSENT = -1;
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final LongLongHashMap index;
+    private int segment;
+    private int position;
+    private long liveBytes;
+    private long rejected;
+    private byte[] scratch = new byte[0];
+
+    /**
+     * @param maxBytes     предел памяти вне кучи
+     * @param segmentBytes размер сегмента; запись больше сегмента не сохраняется
+     */
+    public OffHeapStore(long maxBytes, int segmentBytes, int expectedEntries) {
+        if (segmentBytes <= HEADER_BYTES || maxBytes < segmentBytes) {
+            throw new IllegalArgumentException("Invalid off-heap store size");
+        }
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes);
+        this.index = new LongLongHashMap(expectedEntries);
+    }
+
+    /**
+     * @return false, если запись не поместилась; прежнее значение ключа при этом тоже удаляется
+     */
+    public boolean put(long key, byte[] record) {
+        int size = HEADER_BYTES + record.length;
+        lock.writeLock().lock();
+        try {
+            release(index.remove(key, ABSENT));
+            if (size > segmentBytes || !reserve(size)) {
+                rejected++;
+                return false;
+            }
+            ByteBuffer buffer = segments.get(segment);
+            buffer.putInt(position, record.length);
+            buffer.put(position + HEADER_BYTES, record);
+            index.put(key, address(segment, position), ABSENT);
+            position += size;
+            liveBytes += size;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Отдаёт reader-у запись как read-only буфер без копирования и возвращает его результат,
+     * или null, если ключа нет. Буфер действителен только внутри reader.
+     */
+    public <R> R read(long key, Function<ByteBuffer, R> reader) {
+        lock.readLock().lock();
+        try {
+            long address = index.get(key, ABSENT);
+            if (address == ABSENT) {
+                return null;
+            }
+            ByteBuffer buffer = segments.get(segmentOf(address));
+            int offset = offsetOf(address);
+            int length = buffer.getInt(offset);
+            ByteBuffer record = buffer.asReadOnlyBuffer();
+            record.position(offset + HEADER_BYTES).limit(offset + HEADER_BYTES + length);
+            return reader.apply(record.slice());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try {
+            long address = index.remove(key, ABSENT);
+            release(address);
+            return address != ABSENT;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Сегменты остаются выделенными и переиспользуются.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            segment = 0;
+            position = 0;
+            liveBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) segments.size() * segmentBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        lock.readLock().lock();
+        try {
+            return rejected;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStore{" +
+                "size=" + size() +
+                ", liveBytes=" + getLiveBytes() +
+                ", allocatedBytes=" + getAllocatedBytes() +
+                ", rejected=" + getRejectedCount() +
+                '}';
+    }
+
+    private boolean reserve(int size) {
+        if (fits(size)) {
+            return true;
+        }
+        long used = (long) segment * segmentBytes + position;
+        // уплотняем, только если это освободит заметную часть: иначе каждая запись вызывала бы уплотнение
+        if (used - liveBytes >= used / 4) {
+            compact();
+            if (fits(size)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean fits(int size) {
+        if (segments.isEmpty()) {
+            segments.add(ByteBuffer.allocateDirect(segmentBytes));
+        }
+        if (position + size <= segmentBytes) {
+            return true;
+        }
+        if (segment + 1 >= maxSegments) {
+            return false;
+        }
+        segment++;
+        position = 0;
+        if (segment == segments.size()) {
+            segments.add(ByteBuffer.allocateDirect(segmentBytes));
+        }
+        return true;
+    }
+
+    // живые записи сдвигаются к началу в порядке адресов, поэтому никогда не затирают ещё не перенесённые
+    private void compact() {
+        long[] keys = new long[index.size()];
+        long[] addresses = new long[index.size()];
+        int[] count = {0};
+        index.forEach((key, address) -> {
+            keys[count[0]] = key;
+            addresses[count[0]] = address;
+            count[0]++;
+        });
+        long[] sorted = addresses.clone();
+        Arrays.sort(sorted);
+        LongLongHashMap keyByAddress = new LongLongHashMap(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            keyByAddress.put(addresses[i], keys[i], ABSENT);
+        }
+
+        int targetSegment = 0;
+        int targetPosition = 0;
+        for (long address : sorted) {
+            ByteBuffer source = segments.get(segmentOf(address));
+            int offset = offsetOf(address);
+            int size = HEADER_BYTES + source.getInt(offset);
+            if (targetPosition + size > segmentBytes) {
+                targetSegment++;
+                targetPosition = 0;
+            }
+            if (scratch.length < size) {
+                scratch = new byte[size];
+            }
+            source.get(offset, scratch, 0, size);
+            segments.get(targetSegment).put(targetPosition, scratch, 0, size);
+            index.put(keyByAddress.get(address, ABSENT), address(targetSegment, targetPosition), ABSENT);
+            targetPosition += size;
+        }
+        segment = targetSegment;
+        position = targetPosition;
+    }
+
+    private void release(long address) {
+        if (address != ABSENT) {
+            liveBytes -= HEADER_BYTES + segments.get(segmentOf(address)).getInt(offsetOf(address));
+        }
+    }
+
+    private static long address(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int segmentOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+}
@@ -0,0 +1,193 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Холодный Flow.Publisher поверх запроса: каждый подписчик получает свой запрос и своё соединение.
+ * Строки читаются из ResultSet только в пределах запрошенного подписчиком (request(n)),
+ * с курсором на стороне сервера (fetchSize), поэтому результат целиком в памяти не оказывается.
+ * Соединение возвращается в пул по завершении, ошибке или cancel().
+ * Вся работа с JDBC идёт на потоках executor, по очереди, не на потоке подписчика.
+ */
+public final class ResultSetPublisher<T> implements Flow.Publisher<T> {
+
+    private static final int FETCH_SIZE = PropertiesUtil.getInt("db.fetchSize", 500);
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "result-set-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SqlSupplier<Connection> connections;
+    private final String sql;
+    private final SqlConsumer<PreparedStatement> binder;
+    private final Supplier<SqlFunction<ResultSet, T>> readers;
+    private final Executor executor;
+
+    /**
+     * @param readers для каждой подписки — функция, которая читает следующий элемент
+     *                (одну или несколько строк) и возвращает null, когда данных больше нет
+     */
+    public ResultSetPublisher(String sql, SqlConsumer<PreparedStatement> binder,
+                              Supplier<SqlFunction<ResultSet, T>> readers) {
+        this(ConnectionManager::get, sql, binder, readers, DEFAULT_EXECUTOR);
+    }
+
+    public ResultSetPublisher(SqlSupplier<Connection> connections, String sql, SqlConsumer<PreparedStatement> binder,
+                              Supplier<SqlFunction<ResultSet, T>> readers, Executor executor) {
+        this.connections = connections;
+        this.sql = sql;
+        this.binder = binder;
+        this.readers = readers;
+        this.executor = executor;
+    }
+
+    /**
+     * Чтение по одной строке на элемент.
+     */
+    public static <T> Supplier<SqlFunction<ResultSet, T>> rows(SqlFunction<ResultSet, T> mapper) {
+        return () -> rs -> rs.next() ? mapper.apply(rs) : null;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        Subscription subscription = new Subscription(subscriber, readers.get());
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final SqlFunction<ResultSet, T> reader;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // доступны только из drain(), который не выполняется параллельно сам с собой
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private boolean done;
+
+        private Subscription(Flow.Subscriber<? super T> subscriber, SqlFunction<ResultSet, T> reader) {
+            this.subscriber = subscriber;
+            this.reader = reader;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (!done) {
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    finish();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                try {
+                    long requested = demand.get();
+                    long emitted = 0;
+                    while (emitted != requested && !cancelled) {
+                        T item = reader.apply(open());
+                        if (item == null) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        subscriber.onNext(item);
+                        emitted++;
+                    }
+                    if (emitted != 0 && requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-emitted);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    boolean wasCancelled = cancelled;
+                    finish();
+                    if (!wasCancelled) {
+                        subscriber.onError(e);
+                    }
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private ResultSet open() throws SQLException {
+            if (resultSet == null) {
+                connection = connections.get();
+                // курсор на стороне сервера pgjdbc открывает только вне autocommit
+                connection.setAutoCommit(false);
+                statement = connection.prepareStatement(sql);
+                statement.setFetchSize(FETCH_SIZE);
+                binder.accept(statement);
+                resultSet = statement.executeQuery();
+            }
+            return resultSet;
+        }
+
+        private void finish() {
+            done = true;
+            close(resultSet);
+            close(statement);
+            close(connection);
+            resultSet = null;
+            statement = null;
+            connection = null;
+        }
+
+        private void close(AutoCloseable resource) {
+            if (resource == null) {
+                return;
+            }
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+                // пул сбросит состояние соединения при возврате
+            }
+        }
+    }
+}
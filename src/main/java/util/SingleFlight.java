@@ -0,0 +1,118 @@
+package util;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Склейка одновременных загрузок по одному ключу: первый вызов идёт в базу,
+ * остальные, пришедшие пока он не закончился, ждут и получают тот же результат или ту же ошибку.
+ * Результат общий для всех участников — менять его нельзя.
+ * Ожидающие не держат соединение: из пула его берёт только загружающий поток.
+ */
+public final class SingleFlight<V> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongHashMap<Call<V>> calls = new LongHashMap<>();
+
+    public V load(long key, SqlSupplier<V> loader) throws SQLException {
+        Call<V> call;
+        boolean leader = false;
+        lock.lock();
+        try {
+            call = calls.get(key);
+            if (call == null) {
+                call = new Call<>();
+                calls.put(key, call);
+                leader = true;
+            } else {
+                call.waiters++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return leader ? run(key, call, loader) : await(call.result);
+    }
+
+    /**
+     * Сколько вызовов ждут идущую загрузку по ключу (без загружающего); 0, если загрузки нет.
+     */
+    public int waiting(long key) {
+        lock.lock();
+        try {
+            Call<V> call = calls.get(key);
+            return call == null ? 0 : call.waiters;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Новые вызовы по ключу начнут свою загрузку, а не присоединятся к идущей:
+     * она могла прочитать данные до записи, из-за которой вызывается forget.
+     */
+    public void forget(long key) {
+        lock.lock();
+        try {
+            calls.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void forgetAll() {
+        lock.lock();
+        try {
+            calls.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private V run(long key, Call<V> call, SqlSupplier<V> loader) throws SQLException {
+        try {
+            V value = loader.get();
+            call.result.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException | Error e) {
+            call.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            lock.lock();
+            try {
+                // после forget по ключу может идти уже другая загрузка
+                if (calls.get(key) == call) {
+                    calls.remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private V await(CompletableFuture<V> call) throws SQLException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a concurrent load", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    private static final class Call<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        // под lock
+        private int waiters;
+    }
+}
@@ -0,0 +1,9 @@
+package util;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlConsumer<T> {
+
+    void accept(T value) throws SQLException;
+}
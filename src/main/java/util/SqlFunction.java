@@ -0,0 +1,9 @@
+package util;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlFunction<T, R> {
+
+    R apply(T value) throws SQLException;
+}
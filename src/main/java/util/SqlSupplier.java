@@ -0,0 +1,9 @@
+package util;
+
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlSupplier<T> {
+
+    T get() throws SQLException;
+}
@@ -0,0 +1,366 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Кеш с ключами long, ограниченный суммарным весом записей, с вытеснением W-TinyLFU:
+ * новые записи попадают в небольшое LRU-окно, а в основную область (SLRU: probation + protected)
+ * проходят, только если по частотному скетчу их запрашивают чаще, чем кандидата на вытеснение.
+ * Так разовый проход по множеству ключей не вымывает горячие записи.
+ * Все операции идут под одной блокировкой: порядок списков меняется и при чтении.
+ */
+public final class TinyLfuCache<V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final long maxWeight;
+    private final long windowMaxWeight;
+    private final long protectedMaxWeight;
+    private final ToIntFunction<? super V> weigher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongHashMap<Node<V>> nodes;
+    private final FrequencySketch sketch;
+    private final Node<V> window = Node.sentinel();
+    private final Node<V> probation = Node.sentinel();
+    private final Node<V> protectedQueue = Node.sentinel();
+    private long windowWeight;
+    private long protectedWeight;
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxWeight       предел суммарного веса
+     * @param expectedEntries ожидаемое число записей — от него зависит размер скетча
+     * @param weigher         вес записи, например примерная занимаемая память в байтах
+     */
+    public TinyLfuCache(long maxWeight, int expectedEntries, ToIntFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        // доли областей — как в W-TinyLFU: окно 1%, protected 80% основной области
+        this.windowMaxWeight = Math.max(1, maxWeight / 100);
+        this.protectedMaxWeight = (maxWeight - windowMaxWeight) * 8 / 10;
+        this.weigher = weigher;
+        this.nodes = new LongHashMap<>(Math.max(16, expectedEntries));
+        this.sketch = new FrequencySketch(Math.max(16, expectedEntries));
+    }
+
+    public V get(long key) {
+        lock.lock();
+        try {
+            sketch.increment(key);
+            Node<V> node = nodes.get(key);
+            if (node == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            onHit(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Запись тяжелее всего кеша не сохраняется. Новая запись может быть сразу вытеснена,
+     * если её частота ниже, чем у записей основной области.
+     */
+    public void put(long key, V value) {
+        int weight = weigher.applyAsInt(value);
+        lock.lock();
+        try {
+            Node<V> node = nodes.get(key);
+            if (weight > maxWeight) {
+                if (node != null) {
+                    remove(node);
+                }
+                return;
+            }
+            if (node != null) {
+                long delta = weight - node.weight;
+                node.value = value;
+                node.weight = weight;
+                totalWeight += delta;
+                if (node.queue == WINDOW) {
+                    windowWeight += delta;
+                } else if (node.queue == PROTECTED) {
+                    protectedWeight += delta;
+                }
+                onHit(node);
+            } else {
+                node = new Node<>(key, value, weight);
+                nodes.put(key, node);
+                node.linkLast(window);
+                windowWeight += weight;
+                totalWeight += weight;
+            }
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(long key) {
+        lock.lock();
+        try {
+            Node<V> node = nodes.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            nodes.clear();
+            window.unlinkAll();
+            probation.unlinkAll();
+            protectedQueue.unlinkAll();
+            windowWeight = 0;
+            protectedWeight = 0;
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWeight() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long requests = hitCount + misses.sum();
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "TinyLfuCache{" +
+                "size=" + size() +
+                ", weight=" + getWeight() +
+                ", maxWeight=" + maxWeight +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private void onHit(Node<V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                node.moveToEnd(window);
+                break;
+            case PROBATION:
+                // повторное обращение в probation — запись переводится в protected
+                node.unlink();
+                node.queue = PROTECTED;
+                node.linkLast(protectedQueue);
+                protectedWeight += node.weight;
+                demoteProtected();
+                break;
+            default:
+                node.moveToEnd(protectedQueue);
+                break;
+        }
+    }
+
+    private void demoteProtected() {
+        while (protectedWeight > protectedMaxWeight) {
+            Node<V> demoted = protectedQueue.next;
+            demoted.unlink();
+            protectedWeight -= demoted.weight;
+            demoted.queue = PROBATION;
+            demoted.linkLast(probation);
+        }
+    }
+
+    private void evict() {
+        // переполнение окна уходит в конец probation кандидатами
+        while (windowWeight > windowMaxWeight) {
+            Node<V> candidate = window.next;
+            candidate.unlink();
+            windowWeight -= candidate.weight;
+            candidate.queue = PROBATION;
+            candidate.linkLast(probation);
+        }
+        while (totalWeight > maxWeight) {
+            Node<V> victim = firstOf(probation, protectedQueue, window);
+            Node<V> candidate = probation.prev;
+            if (candidate == probation || candidate == victim) {
+                remove(victim);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+            evictions.increment();
+        }
+    }
+
+    private Node<V> firstOf(Node<V> first, Node<V> second, Node<V> third) {
+        if (first.next != first) {
+            return first.next;
+        }
+        return second.next != second ? second.next : third.next;
+    }
+
+    private void remove(Node<V> node) {
+        node.unlink();
+        nodes.remove(node.key);
+        totalWeight -= node.weight;
+        if (node.queue == WINDOW) {
+            windowWeight -= node.weight;
+        } else if (node.queue == PROTECTED) {
+            protectedWeight -= node.weight;
+        }
+    }
+
+    private static final class Node<V> {
+
+        private final long key;
+        private V value;
+        private int weight;
+        private int queue;
+        private Node<V> prev;
+        private Node<V> next;
+
+        private Node(long key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.queue = WINDOW;
+        }
+
+        private static <V> Node<V> sentinel() {
+            Node<V> sentinel = new Node<>(0, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkLast(Node<V> head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        private void moveToEnd(Node<V> head) {
+            unlink();
+            linkLast(head);
+        }
+
+        private void unlinkAll() {
+            prev = this;
+            next = this;
+        }
+    }
+
+    /**
+     * Count-Min скетч с 4-битными счётчиками (по 16 в long) и периодическим делением пополам,
+     * чтобы частоты отражали недавнюю популярность, а не всю историю.
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEEDS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int expectedEntries) {
+            int length = Integer.highestOneBit(Math.max(2, expectedEntries) - 1) << 1;
+            table = new long[length];
+            mask = length - 1;
+            sampleSize = 10 * length;
+        }
+
+        void increment(long key) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = hash(key, i);
+                int index = (int) hash & mask;
+                int shift = (int) (hash >>> 60) << 2;
+                if (((table[index] >>> shift) & 0xF) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(long key) {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = hash(key, i);
+                int shift = (int) (hash >>> 60) << 2;
+                frequency = Math.min(frequency, (int) ((table[(int) hash & mask] >>> shift) & 0xF));
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions >>>= 1;
+        }
+
+        private static long hash(long key, int i) {
+            long hash = (key + SEEDS[i]) * SEEDS[(i + 1) & 3];
+            return hash ^ (hash >>> 29);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+-- no-transaction
+-- Задачи сотрудника читаются по employee_id с сортировкой по id; title и status
+-- в INCLUDE позволяют обойтись index-only scan без обращения к таблице.
+-- Недостроенный после сбоя индекс (INVALID) удаляется перед повторной попыткой.
+DROP INDEX CONCURRENTLY IF EXISTS tasks_employee_id_idx;
+CREATE INDEX CONCURRENTLY tasks_employee_id_idx ON tasks (employee_id, id) INCLUDE (title, status);
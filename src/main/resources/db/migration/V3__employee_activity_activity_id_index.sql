@@ -0,0 +1,4 @@
+-- no-transaction
+-- unique_link покрывает поиск по employee_id; для выборки сотрудников направления нужен обратный порядок.
+DROP INDEX CONCURRENTLY IF EXISTS employee_activity_activity_id_idx;
+CREATE INDEX CONCURRENTLY employee_activity_activity_id_idx ON employee_activity (activity_id, employee_id);
@@ -0,0 +1,15 @@
+-- Момент последней смены статуса: по нему архиватор отбирает завершённые задачи.
+-- У существующих строк отсчёт начинается с момента миграции.
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS status_changed_at TIMESTAMP NOT NULL DEFAULT now();
+
+CREATE TABLE IF NOT EXISTS tasks_archive
+(
+    id BIGINT PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    status VARCHAR(64),
+    employee_id BIGINT NOT NULL REFERENCES employee ON DELETE CASCADE,
+    status_changed_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS tasks_archive_employee_id_idx ON tasks_archive (employee_id, id) INCLUDE (title, status);
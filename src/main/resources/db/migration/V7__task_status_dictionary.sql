@@ -0,0 +1,28 @@
+-- Статус хранится кодом smallint из справочника вместо строки в каждой строке задачи.
+-- Тип колонки меняется на месте, поэтому индексы с ней перестраиваются, а не пропадают.
+CREATE TABLE IF NOT EXISTS task_status
+(
+    id SMALLINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(64) NOT NULL UNIQUE
+);
+
+INSERT INTO task_status (name)
+SELECT status FROM tasks WHERE status IS NOT NULL
+UNION
+SELECT status FROM tasks_archive WHERE status IS NOT NULL
+ON CONFLICT (name) DO NOTHING;
+
+-- подзапросы в USING запрещены, поэтому поиск кода вынесен во временную функцию
+CREATE FUNCTION pg_temp.task_status_id(status_name VARCHAR) RETURNS SMALLINT
+    LANGUAGE sql STABLE
+AS $$
+SELECT id FROM task_status WHERE name = status_name
+$$;
+
+ALTER TABLE tasks ALTER COLUMN status TYPE SMALLINT USING pg_temp.task_status_id(status);
+ALTER TABLE tasks RENAME COLUMN status TO status_id;
+ALTER TABLE tasks ADD CONSTRAINT tasks_status_id_fkey FOREIGN KEY (status_id) REFERENCES task_status;
+
+ALTER TABLE tasks_archive ALTER COLUMN status TYPE SMALLINT USING pg_temp.task_status_id(status);
+ALTER TABLE tasks_archive RENAME COLUMN status TO status_id;
+ALTER TABLE tasks_archive ADD CONSTRAINT tasks_archive_status_id_fkey FOREIGN KEY (status_id) REFERENCES task_status;
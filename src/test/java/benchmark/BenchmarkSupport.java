@@ -0,0 +1,32 @@
+package benchmark;
+
+import util.PropertiesUtil;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                PropertiesUtil.get("db.url"),
+                PropertiesUtil.get("db.username"),
+                PropertiesUtil.get("db.password"));
+    }
+
+    static void report(String name, long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0) / 1_000;
+        System.out.printf("%-24s avg=%8.1f us  p50=%8.1f us  p99=%8.1f us  (n=%d)%n",
+                name, avg,
+                sorted[sorted.length / 2] / 1_000.0,
+                sorted[(int) (sorted.length * 0.99)] / 1_000.0,
+                sorted.length);
+    }
+}
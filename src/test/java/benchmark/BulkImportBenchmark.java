@@ -0,0 +1,45 @@
+package benchmark;
+
+import repository.BulkRepository;
+import repository.impl.BulkRepositoryImp;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Пропускная способность импорта через COPY: генерирует сотрудников и задачи и загружает их пачками.
+ * Запуск против базы из db.properties (размер пачки — первый аргумент, по умолчанию 200 000):
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.BulkImportBenchmark
+ */
+public class BulkImportBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        BulkRepository bulkRepository = BulkRepositoryImp.getInstance();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long imported = bulkRepository.importEmployees(csv -> {
+                for (int i = 1; i <= rows; i++) {
+                    csv.write(i + ",,\"Имя" + i + "\",\"Фамилия" + i + "\",\"Разработчик\"\n");
+                }
+            }, (line, message) -> { });
+            report("employees", imported, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            imported = bulkRepository.importTasks(csv -> {
+                for (int i = 1; i <= rows; i++) {
+                    csv.write(i + ",\"Задача" + i + "\",\"Новая\",1\n");
+                }
+            }, (line, message) -> { });
+            report("tasks", imported, System.nanoTime() - start);
+        }
+    }
+
+    private static void report(String name, long rows, long nanos) {
+        System.out.printf("%-10s %,10d rows  %8.1f ms  %,12.0f rows/s%n",
+                name, rows, nanos / 1_000_000.0, rows * 1_000_000_000.0 / nanos);
+    }
+}
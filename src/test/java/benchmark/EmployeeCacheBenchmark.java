@@ -0,0 +1,112 @@
+package benchmark;
+
+import model.dto.EmployeeDto;
+import model.dto.TasksDto;
+import util.TinyLfuCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пропускная способность и доля попаданий кеша агрегатов сотрудников при разном соотношении
+ * чтений и записей (запись = сброс агрегата, как при изменении задачи). Ключи распределены
+ * по Ципфу, плюс периодический «скан» по холодным id, который не должен вымывать горячие записи.
+ * База не нужна:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.EmployeeCacheBenchmark
+ */
+public class EmployeeCacheBenchmark {
+
+    private static final int EMPLOYEES = 200_000;
+    private static final long MAX_WEIGHT = 8L * 1024 * 1024;
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long DURATION_MS = 3_000;
+    private static final int[] WRITE_PERCENTS = {0, 5, 20, 50};
+
+    private static final double[] ZIPF = zipf(EMPLOYEES, 0.99);
+
+    public static void main(String[] args) throws InterruptedException {
+        run(5, DURATION_MS / 3);
+        for (int writePercent : WRITE_PERCENTS) {
+            run(writePercent, DURATION_MS);
+        }
+    }
+
+    private static void run(int writePercent, long durationMs) throws InterruptedException {
+        TinyLfuCache<EmployeeDto> cache = new TinyLfuCache<>(MAX_WEIGHT, 16_384, EmployeeCacheBenchmark::weigh);
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.nanoTime() + durationMs * 1_000_000;
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long count = 0;
+                while ((count & 1_023) != 0 || System.nanoTime() < deadline) {
+                    long id = nextId(random, count);
+                    if (random.nextInt(100) < writePercent) {
+                        cache.invalidate(id);
+                    } else if (cache.get(id) == null) {
+                        cache.put(id, load(id));
+                    }
+                    count++;
+                }
+                operations.add(count);
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        System.out.printf("writes=%2d%%  threads=%d  %,12.0f ops/s  hitRatio=%.3f  size=%d  weight=%,d%n",
+                writePercent, THREADS, operations.sum() * 1_000.0 / durationMs,
+                cache.getHitRatio(), cache.size(), cache.getWeight());
+    }
+
+    // каждый 64-й запрос — последовательный проход по холодным id
+    private static long nextId(SplittableRandom random, long count) {
+        if ((count & 63) == 0) {
+            return EMPLOYEES + count;
+        }
+        double u = random.nextDouble();
+        int low = 0;
+        int high = ZIPF.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ZIPF[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static EmployeeDto load(long id) {
+        int taskCount = (int) (id % 20);
+        List<TasksDto> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            tasks.add(new TasksDto("Иван", "Петров", "Задача " + i, "В работе"));
+        }
+        return new EmployeeDto("Иван", "Петров", "Разработчик", List.of(id % 7, id % 11), tasks);
+    }
+
+    private static int weigh(EmployeeDto dto) {
+        return 200 + dto.getTasks().size() * 150;
+    }
+
+    private static double[] zipf(int n, double s) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, s);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
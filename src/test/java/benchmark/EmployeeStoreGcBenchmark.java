@@ -0,0 +1,146 @@
+package benchmark;
+
+import model.dto.EmployeeDto;
+import model.dto.TasksDto;
+import model.mapper.EmployeeSnapshotMapper;
+import util.OffHeapStore;
+import util.TinyLfuCache;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Время GC и занимаемая память: агрегаты сотрудников в куче (TinyLfuCache с EmployeeDto)
+ * против бинарных снимков вне кучи (OffHeapStore). Оба варианта заполняются одними данными,
+ * затем под нагрузкой чтения с созданием короткоживущего мусора (как при обработке запросов)
+ * замеряются число и суммарное время сборок.
+ * Для честного сравнения режимы запускаются в отдельных JVM с одинаковой кучей:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.EmployeeStoreGcBenchmark -Dexec.args=heap
+ * (и -Dexec.args=offheap); без аргументов оба режима идут подряд в одной JVM.
+ */
+public class EmployeeStoreGcBenchmark {
+
+    private static final int EMPLOYEES = 200_000;
+    private static final int TASKS_PER_EMPLOYEE = 10;
+    private static final long MAX_BYTES = 1024L * 1024 * 1024;
+    private static final int READS = 5_000_000;
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "both";
+        if (!mode.equals("offheap")) {
+            run("heap", new HeapStore());
+        }
+        if (!mode.equals("heap")) {
+            run("offheap", new OffHeap());
+        }
+    }
+
+    private static void run(String name, Store store) {
+        for (long id = 0; id < EMPLOYEES; id++) {
+            store.put(id, employee(id));
+        }
+        System.gc();
+        long heapUsed = heapUsed();
+
+        long[] gcBefore = gcTotals();
+        SplittableRandom random = new SplittableRandom(42);
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            EmployeeDto employee = store.get(random.nextInt(EMPLOYEES));
+            // ответ сериализуется и выбрасывается — короткоживущий мусор, как в сервлете
+            checksum += employee.toString().length();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        long[] gcAfter = gcTotals();
+
+        System.out.printf("%-8s heap=%,6d MB  direct=%,6d MB  gc=%,5d collections / %,6d ms  reads=%,d in %,d ms  (%d)%n",
+                name, heapUsed >> 20, directUsed() >> 20,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], READS, elapsedMs, checksum % 10);
+        store.clear();
+        System.gc();
+    }
+
+    private static EmployeeDto employee(long id) {
+        List<TasksDto> tasks = new ArrayList<>(TASKS_PER_EMPLOYEE);
+        for (int i = 0; i < TASKS_PER_EMPLOYEE; i++) {
+            tasks.add(new TasksDto("Иван" + id, "Петров" + id, "Задача " + id + "-" + i, "В работе"));
+        }
+        return new EmployeeDto("Иван" + id, "Петров" + id, "Разработчик", List.of(id % 7, id % 11), tasks);
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    private interface Store {
+        void put(long id, EmployeeDto employee);
+
+        EmployeeDto get(long id);
+
+        void clear();
+    }
+
+    private static final class HeapStore implements Store {
+
+        private final TinyLfuCache<EmployeeDto> cache = new TinyLfuCache<>(Long.MAX_VALUE, EMPLOYEES, e -> 1);
+
+        @Override
+        public void put(long id, EmployeeDto employee) {
+            cache.put(id, employee);
+        }
+
+        @Override
+        public EmployeeDto get(long id) {
+            return cache.get(id);
+        }
+
+        @Override
+        public void clear() {
+            cache.invalidateAll();
+        }
+    }
+
+    private static final class OffHeap implements Store {
+
+        private final OffHeapStore store = new OffHeapStore(MAX_BYTES, 4 * 1024 * 1024, EMPLOYEES);
+
+        @Override
+        public void put(long id, EmployeeDto employee) {
+            store.put(id, EmployeeSnapshotMapper.toBytes(employee));
+        }
+
+        @Override
+        public EmployeeDto get(long id) {
+            return store.read(id, snapshot -> EmployeeSnapshotMapper.toEmployeeDto(snapshot, true, true));
+        }
+
+        @Override
+        public void clear() {
+            store.clear();
+        }
+    }
+}
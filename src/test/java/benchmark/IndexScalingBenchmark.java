@@ -0,0 +1,98 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Random;
+
+/**
+ * Задержка выборки задач сотрудника и сотрудников направления в зависимости от размера таблиц,
+ * без индексов и с индексами из миграций V2 и V3. Работает на временных копиях таблиц.
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.IndexScalingBenchmark
+ */
+public class IndexScalingBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROWS_PER_KEY = 1_000;
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2_000;
+
+    private static final String CREATE_TABLES = """
+            CREATE TEMP TABLE bench_tasks (LIKE tasks INCLUDING DEFAULTS);
+            CREATE TEMP TABLE bench_employee_activity (LIKE employee_activity)
+            """;
+
+    private static final String FILL = """
+            TRUNCATE bench_tasks, bench_employee_activity;
+            INSERT INTO bench_tasks(id, title, status_id, employee_id)
+            SELECT g, 'Задача ' || g, NULL, g / %1$d FROM generate_series(1, %2$d) g;
+            INSERT INTO bench_employee_activity(employee_id, activity_id)
+            SELECT g, g / %1$d FROM generate_series(1, %2$d) g;
+            ANALYZE bench_tasks;
+            ANALYZE bench_employee_activity
+            """;
+
+    private static final String CREATE_INDEXES = """
+            CREATE INDEX bench_tasks_employee_id_idx ON bench_tasks (employee_id, id) INCLUDE (title, status_id);
+            CREATE INDEX bench_employee_activity_activity_id_idx ON bench_employee_activity (activity_id, employee_id);
+            VACUUM ANALYZE bench_tasks;
+            VACUUM ANALYZE bench_employee_activity
+            """;
+
+    private static final String DROP_INDEXES = """
+            DROP INDEX IF EXISTS bench_tasks_employee_id_idx;
+            DROP INDEX IF EXISTS bench_employee_activity_activity_id_idx
+            """;
+
+    private static final String GET_TASKS = """
+            SELECT id, title, status_id FROM bench_tasks WHERE employee_id = ? ORDER BY id
+            """;
+
+    private static final String GET_EMPLOYEE_IDS = """
+            SELECT employee_id FROM bench_employee_activity WHERE activity_id = ? ORDER BY employee_id
+            """;
+
+    public static void main(String[] args) throws SQLException {
+        try (Connection connection = BenchmarkSupport.connect()) {
+            run(connection, CREATE_TABLES);
+            for (int size : SIZES) {
+                run(connection, DROP_INDEXES);
+                run(connection, String.format(FILL, ROWS_PER_KEY, size));
+                int keys = size / ROWS_PER_KEY;
+                report(connection, size, keys, "no index");
+                run(connection, CREATE_INDEXES);
+                report(connection, size, keys, "indexed");
+            }
+        }
+    }
+
+    private static void report(Connection connection, int size, int keys, String label) throws SQLException {
+        measure(connection, GET_TASKS, keys, WARMUP);
+        BenchmarkSupport.report("tasks " + size + " " + label, measure(connection, GET_TASKS, keys, ITERATIONS));
+        measure(connection, GET_EMPLOYEE_IDS, keys, WARMUP);
+        BenchmarkSupport.report("links " + size + " " + label, measure(connection, GET_EMPLOYEE_IDS, keys, ITERATIONS));
+    }
+
+    private static long[] measure(Connection connection, String sql, int keys, int iterations) throws SQLException {
+        Random random = new Random(7);
+        long[] samples = new long[iterations];
+        try (var ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < iterations; i++) {
+                ps.setLong(1, random.nextInt(keys));
+                long start = System.nanoTime();
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getLong(1);
+                    }
+                }
+                samples[i] = System.nanoTime() - start;
+            }
+        }
+        return samples;
+    }
+
+    private static void run(Connection connection, String script) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(script);
+        }
+    }
+}
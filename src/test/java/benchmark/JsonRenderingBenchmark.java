@@ -0,0 +1,105 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import service.ActivityService;
+import service.EmployeeService;
+import service.impl.ActivityServiceImpl;
+import service.impl.EmployeeServiceImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Сравнивает два способа отдать JSON: маппинг в DTO + Jackson и готовый JSON из PostgreSQL.
+ * Для каждого режима печатает задержку, процессорное время потока приложения и выделенную память на запрос,
+ * а перед замером проверяет, что ответы совпадают побайтно.
+ * Запуск против базы из db.properties (id сотрудника — первый аргумент, по умолчанию 1):
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.JsonRenderingBenchmark
+ */
+public class JsonRenderingBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final EmployeeService EMPLOYEES = EmployeeServiceImpl.getInstance();
+    private static final ActivityService ACTIVITIES = ActivityServiceImpl.getInstance();
+
+    private static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        long employeeId = args.length > 0 ? Long.parseLong(args[0]) : 1;
+
+        check("GET /employee/{id}", jackson(employeeId, true), EMPLOYEES.getEmployeeJson(employeeId));
+        check("GET /activity", jackson(employeeId, false), ACTIVITIES.getAllActivitiesJson());
+
+        for (boolean employee : new boolean[]{true, false}) {
+            String name = employee ? "employee" : "activity";
+            measure(employeeId, employee, false, WARMUP);
+            measure(employeeId, employee, true, WARMUP);
+            measure(employeeId, employee, false, ITERATIONS).print(name + " jackson");
+            measure(employeeId, employee, true, ITERATIONS).print(name + " database");
+        }
+    }
+
+    private static Result measure(long employeeId, boolean employee, boolean database, int iterations)
+            throws SQLException, IOException {
+        long[] samples = new long[iterations];
+        long threadId = Thread.currentThread().getId();
+        long cpuStart = THREADS.getCurrentThreadCpuTime();
+        long allocatedStart = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            if (database) {
+                byte[] json = employee ? EMPLOYEES.getEmployeeJson(employeeId) : ACTIVITIES.getAllActivitiesJson();
+                sink(json.length);
+            } else {
+                sink(jackson(employeeId, employee).length);
+            }
+            samples[i] = System.nanoTime() - start;
+        }
+        long cpu = THREADS.getCurrentThreadCpuTime() - cpuStart;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedStart;
+        return new Result(samples, cpu / iterations, allocated / iterations);
+    }
+
+    private static byte[] jackson(long employeeId, boolean employee) throws SQLException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MAPPER.writeValue(out, employee ? EMPLOYEES.getEmployeeById(employeeId) : ACTIVITIES.getAllActivities());
+        return out.toByteArray();
+    }
+
+    private static void check(String endpoint, byte[] expected, byte[] actual) {
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(endpoint + ": database JSON differs from Jackson output");
+        }
+    }
+
+    private static void sink(long value) {
+        blackhole += value;
+    }
+
+    private static final class Result {
+
+        private final long[] samples;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+
+        private Result(long[] samples, long cpuNanos, long allocatedBytes) {
+            this.samples = samples;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        private void print(String name) {
+            BenchmarkSupport.report(name, samples);
+            System.out.printf("%-24s cpu=%8.1f us  alloc=%8d B/op%n", "", cpuNanos / 1_000.0, allocatedBytes);
+        }
+    }
+}
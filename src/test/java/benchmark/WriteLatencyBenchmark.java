@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Сравнивает задержку одной записи: INSERT + повторный SELECT (как было) и INSERT ... RETURNING.
+ * Запуск против базы из db.properties:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=benchmark.WriteLatencyBenchmark
+ */
+public class WriteLatencyBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private static final String CREATE_TABLE = """
+            CREATE TEMP TABLE bench_employee (LIKE employee INCLUDING ALL)
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO bench_employee(emp_firstname, emp_lastname, position) VALUES (?,?,?)
+            """;
+
+    private static final String SELECT_BY_ID = """
+            SELECT * FROM bench_employee WHERE id = ?
+            """;
+
+    private static final String INSERT_RETURNING = """
+            INSERT INTO bench_employee(emp_firstname, emp_lastname, position) VALUES (?,?,?)
+            RETURNING id, emp_firstname, emp_lastname, position
+            """;
+
+    public static void main(String[] args) throws SQLException {
+        try (Connection connection = BenchmarkSupport.connect()) {
+            try (var statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+
+            measure(connection, true, WARMUP);
+            measure(connection, false, WARMUP);
+            BenchmarkSupport.report("insert + select", measure(connection, true, ITERATIONS));
+            BenchmarkSupport.report("insert returning", measure(connection, false, ITERATIONS));
+        }
+    }
+
+    private static long[] measure(Connection connection, boolean reselect, int iterations) throws SQLException {
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            if (reselect) {
+                insertThenSelect(connection, i);
+            } else {
+                insertReturning(connection, i);
+            }
+            samples[i] = System.nanoTime() - start;
+        }
+        return samples;
+    }
+
+    private static void insertThenSelect(Connection connection, int i) throws SQLException {
+        long id = 0;
+        try (var ps = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bind(ps, i);
+            ps.executeUpdate();
+            try (var rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    id = rs.getLong("id");
+                }
+            }
+        }
+        try (var ps = connection.prepareStatement(SELECT_BY_ID)) {
+            ps.setLong(1, id);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    private static void insertReturning(Connection connection, int i) throws SQLException {
+        try (var ps = connection.prepareStatement(INSERT_RETURNING)) {
+            bind(ps, i);
+            try (var rs = ps.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, int i) throws SQLException {
+        ps.setString(1, "Имя" + i);
+        ps.setString(2, "Фамилия" + i);
+        ps.setString(3, "Разработчик");
+    }
+}
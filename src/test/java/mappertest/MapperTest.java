@@ -8,13 +8,17 @@ import model.dto.EmployeeDto;
 import model.dto.TasksDto;
 import model.mapper.ActivityMapper;
 import model.mapper.EmployeeMapper;
+import model.mapper.EmployeeSnapshotMapper;
 import model.mapper.TasksMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
 
 class MapperTest {
 
@@ -86,4 +90,22 @@ class MapperTest {
         assertThat(newTasks.getEmployee().getFirstName(), equalTo(tasksDto.getFirstName()));
         assertThat(newTasks.getEmployee().getLastName(), equalTo(tasksDto.getLastName()));
     }
+
+    @Test
+    void employeeSnapshot_roundTrip(){
+        ByteBuffer snapshot = ByteBuffer.allocateDirect(EmployeeSnapshotMapper.toBytes(employeeDto).length);
+        snapshot.put(EmployeeSnapshotMapper.toBytes(employeeDto)).flip();
+        assertThat(EmployeeSnapshotMapper.toEmployeeDto(snapshot, true, true), equalTo(employeeDto));
+    }
+
+    @Test
+    void employeeSnapshot_whenPartsNotRequested_thenNull(){
+        ByteBuffer snapshot = ByteBuffer.wrap(EmployeeSnapshotMapper.toBytes(employeeDto));
+        EmployeeDto withoutActivities = EmployeeSnapshotMapper.toEmployeeDto(snapshot, false, true);
+        assertThat(withoutActivities.getActivity(), nullValue());
+        assertThat(withoutActivities.getTasks(), equalTo(employeeDto.getTasks()));
+        EmployeeDto headerOnly = EmployeeSnapshotMapper.toEmployeeDto(snapshot, false, false);
+        assertThat(headerOnly.getPosition(), equalTo("Разработчик"));
+        assertThat(headerOnly.getTasks(), nullValue());
+    }
 }
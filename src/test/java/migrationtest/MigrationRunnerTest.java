@@ -0,0 +1,171 @@
+package migrationtest;
+
+import migration.Migration;
+import migration.MigrationRunner;
+import migration.Migrations;
+import migration.SqlMigration;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Testcontainers
+class MigrationRunnerTest {
+
+    @Container
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("company")
+            .withUsername("root")
+            .withPassword("root");
+
+    // у каждого теста своя база: миграции меняют схему необратимо
+    private static Supplier<Connection> database(String name) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             var statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        }
+        String url = postgres.getJdbcUrl().replace("/" + postgres.getDatabaseName(), "/" + name);
+        return () -> {
+            try {
+                return DriverManager.getConnection(url, postgres.getUsername(), postgres.getPassword());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    @Test
+    void migrate_whenRunTwice_thenApplyOnceAndCreateIndexes() throws SQLException {
+        Supplier<Connection> connections = database("run_twice");
+        assertThat(new MigrationRunner(connections, Migrations.all()).migrate(), equalTo(Migrations.all().size()));
+        assertThat(new MigrationRunner(connections, Migrations.all()).migrate(), equalTo(0));
+
+        try (Connection connection = connections.get();
+             var rs = connection.createStatement().executeQuery("""
+                     SELECT count(*) FROM pg_indexes
+                     WHERE indexname IN ('tasks_employee_id_idx', 'employee_activity_activity_id_idx')
+                     """)) {
+            rs.next();
+            assertThat(rs.getInt(1), equalTo(2));
+        }
+    }
+
+    @Test
+    void migrate_whenTwoInstancesStartTogether_thenBothFinishAndApplyOnce() throws Exception {
+        Supplier<Connection> connections = database("parallel_start");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // второй ждёт блокировку, пока первый строит индексы CONCURRENTLY
+            Future<Integer> first = executor.submit(() -> new MigrationRunner(connections, Migrations.all()).migrate());
+            Future<Integer> second = executor.submit(() -> new MigrationRunner(connections, Migrations.all()).migrate());
+            int applied = first.get(2, TimeUnit.MINUTES) + second.get(2, TimeUnit.MINUTES);
+            assertThat(applied, equalTo(Migrations.all().size()));
+        } finally {
+            executor.shutdownNow();
+        }
+        try (Connection connection = connections.get();
+             var rs = connection.createStatement().executeQuery("SELECT count(*) FROM schema_history")) {
+            rs.next();
+            assertThat(rs.getInt(1), equalTo(Migrations.all().size()));
+        }
+    }
+
+    @Test
+    void migrate_whenAppliedScriptChanged_thenFail() throws SQLException {
+        Supplier<Connection> connections = database("changed_script");
+        new MigrationRunner(connections, Migrations.all()).migrate();
+
+        List<Migration> changed = new ArrayList<>(Migrations.all());
+        changed.set(0, new SqlMigration(1, "baseline", "db/migration/V3__employee_activity_activity_id_index.sql"));
+
+        assertThrows(SQLException.class, () -> new MigrationRunner(connections, changed).migrate());
+    }
+
+    @Test
+    void migrate_whenTasksPartitioned_thenKeepRowsAndPruneByEmployee() throws SQLException {
+        Supplier<Connection> connections = database("partitioned");
+        new MigrationRunner(connections, Migrations.all(0)).migrate();
+        try (Connection connection = connections.get();
+             var statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO employee(id, emp_firstname, emp_lastname, position)
+                    VALUES (101, 'Иван', 'Иванов', 'Разработчик'), (102, 'Петр', 'Петров', 'Тестировщик');
+                    INSERT INTO task_status(name) VALUES ('В работе');
+                    INSERT INTO tasks(title, status_id, employee_id)
+                    SELECT title, (SELECT id FROM task_status), employee_id
+                    FROM (VALUES ('Отчет', 101), ('Ревью', 102), ('Релиз', 101)) AS t(title, employee_id)
+                    """);
+        }
+
+        new MigrationRunner(connections, Migrations.all(4)).migrate();
+
+        try (Connection connection = connections.get();
+             var statement = connection.createStatement()) {
+            try (var rs = statement.executeQuery("SELECT relkind FROM pg_class WHERE relname = 'tasks'")) {
+                rs.next();
+                assertThat(rs.getString(1), equalTo("p"));
+            }
+            try (var rs = statement.executeQuery("SELECT count(*) FROM tasks WHERE employee_id = 101")) {
+                rs.next();
+                assertThat(rs.getInt(1), equalTo(2));
+            }
+            statement.execute("INSERT INTO tasks(title, employee_id) VALUES ('Новая', 102)");
+
+            StringBuilder plan = new StringBuilder();
+            try (var rs = statement.executeQuery("EXPLAIN SELECT id FROM tasks WHERE employee_id = 101")) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            assertThat(plan.toString(), not(containsString("Append")));
+        }
+    }
+
+    @Test
+    void migrate_whenStatusDictionaryAdded_thenReplaceStringsWithCodes() throws SQLException {
+        Supplier<Connection> connections = database("status_dictionary");
+        new MigrationRunner(connections, Migrations.all(0).subList(0, 5)).migrate();
+        try (Connection connection = connections.get();
+             var statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO employee(id, emp_firstname, emp_lastname, position)
+                    VALUES (101, 'Иван', 'Иванов', 'Разработчик');
+                    INSERT INTO tasks(title, status, employee_id)
+                    VALUES ('Отчет', 'В работе', 101), ('Ревью', NULL, 101), ('Релиз', 'В работе', 101)
+                    """);
+        }
+
+        new MigrationRunner(connections, Migrations.all(0)).migrate();
+
+        try (Connection connection = connections.get();
+             var statement = connection.createStatement();
+             var rs = statement.executeQuery("""
+                     SELECT count(DISTINCT t.status_id), count(s.name), (SELECT count(*) FROM task_status)
+                     FROM tasks AS t
+                     LEFT JOIN task_status AS s ON s.id = t.status_id
+                     """)) {
+            rs.next();
+            assertThat(rs.getInt(1), equalTo(1));
+            assertThat(rs.getInt(2), equalTo(2));
+            assertThat(rs.getInt(3), equalTo(1));
+        }
+    }
+}
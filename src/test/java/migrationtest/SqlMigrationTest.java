@@ -0,0 +1,45 @@
+package migrationtest;
+
+import migration.SqlMigration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlMigrationTest {
+
+    @Test
+    void statements_whenSemicolonInsideLiteralsAndComments_thenDoNotSplit() {
+        String script = """
+                -- комментарий; не команда
+                INSERT INTO activity(name) VALUES ('Мафия; ''клуб''');
+                /* блок; */ SELECT "a;b" FROM t;
+                DO $body$ BEGIN PERFORM 1; END $body$;
+                """;
+
+        List<String> statements = SqlMigration.statements(script);
+
+        assertThat(statements.size(), equalTo(3));
+        assertThat(statements.get(0), equalTo("-- комментарий; не команда\nINSERT INTO activity(name) VALUES ('Мафия; ''клуб''')"));
+        assertThat(statements.get(1), equalTo("/* блок; */ SELECT \"a;b\" FROM t"));
+        assertThat(statements.get(2), equalTo("DO $body$ BEGIN PERFORM 1; END $body$"));
+    }
+
+    @Test
+    void statements_whenOnlyCommentsAfterLastCommand_thenIgnoreThem() {
+        assertThat(SqlMigration.statements("SELECT 1;\n-- конец\n"), contains("SELECT 1"));
+        assertThat(SqlMigration.statements("  \n-- пусто\n"), empty());
+    }
+
+    @Test
+    void isTransactional_whenDirectivePresent_thenFalse() {
+        assertTrue(new SqlMigration(1, "baseline", "schema.sql").isTransactional());
+        assertFalse(new SqlMigration(2, "index", "db/migration/V2__tasks_employee_id_index.sql").isTransactional());
+    }
+}
@@ -1,6 +1,7 @@
 package repositorytest;
 
 
+import migration.Migrations;
 import model.Activity;
 import model.Employee;
 import org.junit.jupiter.api.AfterAll;
@@ -14,6 +15,7 @@ import repository.ActivityRepository;
 import repository.impl.ActivityRepositoryImp;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -36,9 +38,10 @@ class ActivityRepositoryTest {
     ActivityRepository activityRepository;
 
     @BeforeAll
-    static void beforeAll() {
+    static void beforeAll() throws SQLException {
         postgres.start();
         setupProperties();
+        Migrations.migrate(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
     }
 
     @AfterAll
@@ -92,12 +95,41 @@ class ActivityRepositoryTest {
         assertThat(foundActivity, equalTo(activity));
     }
 
+    @Test
+    void getActivitiesByIds() throws SQLException {
+        Activity first = activityRepository.addActivity(new Activity(0L, "Шахматы"));
+        Activity second = activityRepository.addActivity(new Activity(0L, "Шашки"));
+        List<Activity> activities = activityRepository.getActivitiesByIds(List.of(first.getId(), second.getId(), 99L));
+        assertThat(activities.size(), equalTo(2));
+    }
+
     @Test
     void getActivitiesWithEmployee() throws SQLException {
         Map<Activity, List<Employee>> activityWithEmployee = activityRepository.getActivitiesWithEmployee();
         assertNotNull(activityWithEmployee);
     }
 
+    @Test
+    void getActivitiesWithEmployeePage() throws SQLException {
+        Activity first = activityRepository.addActivity(new Activity(0L, "Футбол"));
+        Activity second = activityRepository.addActivity(new Activity(0L, "Хоккей"));
+        Map<Activity, List<Employee>> page = activityRepository.getActivitiesWithEmployee(first.getId() - 1, 1);
+        assertThat(page.keySet().iterator().next(), equalTo(first));
+        page = activityRepository.getActivitiesWithEmployee(first.getId(), 10);
+        assertThat(page.keySet().iterator().next(), equalTo(second));
+    }
+
+    @Test
+    void streamActivitiesWithEmployee() throws SQLException {
+        List<Activity> streamed = new ArrayList<>();
+        activityRepository.streamActivitiesWithEmployee(streamed::add);
+        Map<Activity, List<Employee>> activityWithEmployee = activityRepository.getActivitiesWithEmployee();
+        assertThat(streamed, equalTo(new ArrayList<>(activityWithEmployee.keySet())));
+        for (Activity activity : streamed) {
+            assertThat(activity.getEmployees(), equalTo(activityWithEmployee.get(activity)));
+        }
+    }
+
     @Test
     void addActivityWhenAlreadyExists() throws SQLException {
         Activity newActivity = new Activity(0L,"Волейбол");
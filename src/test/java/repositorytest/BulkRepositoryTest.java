@@ -0,0 +1,126 @@
+package repositorytest;
+
+import migration.Migrations;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import repository.BulkRepository;
+import repository.impl.BulkRepositoryImp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Testcontainers
+class BulkRepositoryTest {
+
+    @Container
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("company")
+            .withUsername("root")
+            .withPassword("root")
+            .withInitScript("schema.sql");
+
+    BulkRepository bulkRepository;
+
+    @BeforeAll
+    static void beforeAll() throws SQLException {
+        postgres.start();
+        setupProperties();
+        Migrations.migrate(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        setupProperties();
+        bulkRepository = BulkRepositoryImp.getInstance();
+    }
+
+    private static void setupProperties() {
+        System.setProperty("db.driver", "org.postgresql.Driver");
+        System.setProperty("db.url", postgres.getJdbcUrl());
+        System.setProperty("db.username", postgres.getUsername());
+        System.setProperty("db.password", postgres.getPassword());
+    }
+
+    @Test
+    void importEmployees() throws SQLException, IOException {
+        List<Long> rejected = new ArrayList<>();
+        long imported = bulkRepository.importEmployees(csv -> {
+            csv.write("1,,\"Анна\",\"Смирнова\",\"Аналитик\"\n");
+            csv.write("2,,\"Олег\",\"Иванов\",\"Разработчик, \"\"старший\"\"\"\n");
+        }, (line, message) -> rejected.add(line));
+        assertThat(imported, equalTo(2L));
+        assertThat(rejected.size(), equalTo(0));
+    }
+
+    @Test
+    void importEmployeesWhenExplicitAndGeneratedIdsMixed() throws SQLException, IOException {
+        long nextId = bulkRepository.getExportRange("employee")[1] + 1;
+        List<Long> rejected = new ArrayList<>();
+        long imported = bulkRepository.importEmployees(csv -> {
+            csv.write("1," + nextId + ",\"Анна\",\"Смирнова\",\"Аналитик\"\n");
+            csv.write("2,,\"Олег\",\"Иванов\",\"Разработчик\"\n");
+        }, (line, message) -> rejected.add(line));
+        assertThat(imported, equalTo(2L));
+        assertThat(rejected.size(), equalTo(0));
+        assertThat(bulkRepository.getExportRange("employee")[1], greaterThan(nextId));
+    }
+
+    @Test
+    void importTasksWhenEmployeeNotExists() throws SQLException, IOException {
+        List<Long> rejected = new ArrayList<>();
+        long imported = bulkRepository.importTasks(csv -> {
+            csv.write("1,\"Отчёт\",\"Новая\",1\n");
+            csv.write("2,\"Отчёт\",,99999\n");
+        }, (line, message) -> rejected.add(line));
+        assertThat(imported, equalTo(1L));
+        assertThat(rejected, equalTo(List.of(2L)));
+    }
+
+    @Test
+    void importEmployeeActivitiesWhenDuplicate() throws SQLException, IOException {
+        List<Long> rejected = new ArrayList<>();
+        bulkRepository.importEmployeeActivities(csv -> {
+            csv.write("1,1,1\n");
+            csv.write("2,1,1\n");
+        }, (line, message) -> rejected.add(line));
+        assertThat(rejected.contains(2L), equalTo(true));
+    }
+
+    @Test
+    void exportEmployeesInRanges() throws SQLException, IOException {
+        long[] range = bulkRepository.getExportRange("employee");
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        bulkRepository.export("employee", true, true, range[0], range[1], null, whole);
+
+        long middle = (range[0] + range[1]) / 2;
+        ByteArrayOutputStream parts = new ByteArrayOutputStream();
+        bulkRepository.export("employee", true, true, range[0], middle, null, parts);
+        bulkRepository.export("employee", true, false, middle + 1, range[1], null, parts);
+        assertThat(parts.toString(StandardCharsets.UTF_8), equalTo(whole.toString(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void exportTasksAsNdjson() throws SQLException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkRepository.export("task", false, false, 1, 1, null, out);
+        assertThat(out.toString(StandardCharsets.UTF_8).startsWith("{\"id\":1,"), equalTo(true));
+    }
+}
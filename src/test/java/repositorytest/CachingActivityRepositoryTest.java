@@ -0,0 +1,103 @@
+package repositorytest;
+
+import model.Activity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.ActivityRepository;
+import repository.impl.CachingActivityRepository;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingActivityRepositoryTest {
+
+    private static final long TTL_MS = 1_000;
+
+    private final AtomicLong now = new AtomicLong();
+    private ActivityRepository delegate;
+    private CachingActivityRepository cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ActivityRepository.class);
+        cache = new CachingActivityRepository(delegate, TTL_MS, 2, now::get);
+    }
+
+    @Test
+    void getActivityById_whenCached_thenSkipDelegateAndReturnCopy() throws SQLException {
+        when(delegate.getActivityById(1L)).thenReturn(new Activity(1L, "Мафия"));
+
+        Activity first = cache.getActivityById(1L);
+        Activity second = cache.getActivityById(1L);
+
+        assertThat(second, equalTo(first));
+        assertThat(second, not(sameInstance(first)));
+        verify(delegate, times(1)).getActivityById(1L);
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+    }
+
+    @Test
+    void getActivityById_whenTtlExpired_thenReload() throws SQLException {
+        when(delegate.getActivityById(1L)).thenReturn(new Activity(1L, "Мафия"));
+
+        cache.getActivityById(1L);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MS));
+        cache.getActivityById(1L);
+
+        verify(delegate, times(2)).getActivityById(1L);
+    }
+
+    @Test
+    void updateActivity_thenInvalidate() throws SQLException {
+        when(delegate.getActivityById(1L)).thenReturn(new Activity(1L, "Мафия"), new Activity(1L, "Дизайн"));
+        when(delegate.updateActivity(new Activity(1L, "Дизайн"))).thenReturn(new Activity(1L, "Дизайн"));
+
+        cache.getActivityById(1L);
+        cache.updateActivity(new Activity(1L, "Дизайн"));
+
+        assertThat(cache.getActivityById(1L).getName(), equalTo("Дизайн"));
+        assertThat(cache.getEvictionCount(), equalTo(1L));
+    }
+
+    @Test
+    void getActivitiesByIds_thenLoadOnlyMissing() throws SQLException {
+        when(delegate.getActivityById(1L)).thenReturn(new Activity(1L, "Мафия"));
+        when(delegate.getActivitiesByIds(List.of(2L))).thenReturn(List.of(new Activity(2L, "Дизайн")));
+
+        cache.getActivityById(1L);
+        List<Activity> activities = cache.getActivitiesByIds(List.of(1L, 2L));
+
+        assertThat(activities, containsInAnyOrder(new Activity(1L, "Мафия"), new Activity(2L, "Дизайн")));
+        verify(delegate).getActivitiesByIds(List.of(2L));
+    }
+
+    @Test
+    void getActivityById_whenFull_thenEvictExpiredOnly() throws SQLException {
+        when(delegate.getActivityById(1L)).thenReturn(new Activity(1L, "Мафия"));
+        when(delegate.getActivityById(2L)).thenReturn(new Activity(2L, "Дизайн"));
+        when(delegate.getActivityById(3L)).thenReturn(new Activity(3L, "Тестирование"));
+
+        cache.getActivityById(1L);
+        cache.getActivityById(2L);
+        cache.getActivityById(3L);
+        assertThat(cache.size(), equalTo(2));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(TTL_MS));
+        cache.getActivityById(3L);
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getEvictionCount(), equalTo(2L));
+    }
+}
@@ -1,5 +1,6 @@
 package repositorytest;
 
+import migration.Migrations;
 import model.Activity;
 import model.Employee;
 import org.junit.jupiter.api.*;
@@ -10,6 +11,7 @@ import repository.EmployeeRepository;
 import repository.impl.EmployeeRepositoryImp;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -29,9 +31,10 @@ class EmployeeRepositoryTest {
     EmployeeRepository employeeRepository;
 
     @BeforeAll
-    static void beforeAll() {
+    static void beforeAll() throws SQLException {
         postgres.start();
         setupProperties();
+        Migrations.migrate(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
     }
 
     @AfterAll
@@ -87,6 +90,33 @@ class EmployeeRepositoryTest {
         assertThat(foundEmployee, equalTo(employee));
     }
 
+    @Test
+    void getEmployeeWithDetails() throws SQLException {
+        Employee newEmployee = new Employee(0L, "Ольга", "Соколова", "Аналитик");
+        Employee employee = employeeRepository.addEmployee(newEmployee, List.of(1L, 2L));
+        Employee foundEmployee = employeeRepository.getEmployeeWithDetails(employee.getId());
+        assertThat(foundEmployee, equalTo(employee));
+        assertThat(foundEmployee.getActivities().size(), equalTo(2));
+        assertNotNull(foundEmployee.getTasks());
+    }
+
+    @Test
+    void getEmployeeWithDetailsOnlyActivities() throws SQLException {
+        Employee newEmployee = new Employee(0L, "Денис", "Орлов", "Аналитик");
+        Employee employee = employeeRepository.addEmployee(newEmployee, List.of(1L));
+        Employee foundEmployee = employeeRepository.getEmployeeWithDetails(employee.getId(), true, false);
+        assertThat(foundEmployee.getActivities().size(), equalTo(1));
+        assertNull(foundEmployee.getTasks());
+    }
+
+    @Test
+    void streamEmployeesWithTasksByActivityId() throws SQLException {
+        List<Employee> streamed = new ArrayList<>();
+        employeeRepository.streamEmployeesWithTasksByActivityId(1L, streamed::add);
+        assertThat(streamed, equalTo(employeeRepository.getEmployeesByActivityId(1L)));
+        streamed.forEach(employee -> assertNotNull(employee.getTasks()));
+    }
+
     @Test
     void findActivityByEmployeeId() throws SQLException {
         Employee newEmployee = new Employee(0L, "Charlie", "Brown", "Tester");
@@ -7,8 +7,13 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import repository.TasksRepository;
 import repository.impl.TasksRepositoryImp;
+import migration.Migrations;
+import util.LongHashMap;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -28,9 +33,10 @@ class TasksRepositoryTest {
     TasksRepository tasksRepository;
 
     @BeforeAll
-    static void beforeAll() {
+    static void beforeAll() throws SQLException {
         postgres.start();
         setupProperties();
+        Migrations.migrate(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
     }
 
     @AfterAll
@@ -93,6 +99,25 @@ class TasksRepositoryTest {
         assertFalse(tasks.isEmpty());
     }
 
+    @Test
+    void getTasksByEmployeeIds() throws SQLException {
+        tasksRepository.addTask(new Tasks(0L, "Планирование", "В процессе"), 1L);
+        LongHashMap<List<Tasks>> tasks = tasksRepository.getTasksByEmployeeIds(new long[]{1L, 99L});
+        assertFalse(tasks.get(1L).isEmpty());
+        assertNull(tasks.get(99L));
+    }
+
+    @Test
+    void getTasksByEmployeeIdPage() throws SQLException {
+        Tasks first = tasksRepository.addTask(new Tasks(0L, "Ревью", "Новая"), 1L);
+        Tasks second = tasksRepository.addTask(new Tasks(0L, "Релиз", "Новая"), 1L);
+        List<Tasks> page = tasksRepository.getTasksByEmployeeId(1L, first.getId() - 1, 1);
+        assertThat(page.size(), equalTo(1));
+        assertThat(page.get(0).getId(), equalTo(first.getId()));
+        page = tasksRepository.getTasksByEmployeeId(1L, second.getId(), 10);
+        assertTrue(page.isEmpty());
+    }
+
     @Test
     void addTaskWhenAlreadyExists() throws SQLException {
         Tasks newTask = new Tasks(0L, "Составление отчета", "На утверждении");
@@ -115,4 +140,40 @@ class TasksRepositoryTest {
     void getTaskByIdWhenNotExists() throws SQLException {
         assertThrows(SQLException.class, () -> tasksRepository.getTaskById(99L));
     }
+
+    @Test
+    void archiveTasks() throws SQLException {
+        Tasks done = tasksRepository.addTask(new Tasks(0L, "Закрыть спринт", "Готово"), 1L);
+        Tasks active = tasksRepository.addTask(new Tasks(0L, "Новый спринт", "В процессе"), 1L);
+        Timestamp future = Timestamp.from(Instant.now().plus(1, ChronoUnit.DAYS));
+
+        while (tasksRepository.archiveTasks(new String[]{"Готово"}, future, 1) > 0) {
+            // пачками по одной, пока не останется подходящих
+        }
+
+        assertThrows(SQLException.class, () -> tasksRepository.getTaskById(done.getId()));
+        assertThat(tasksRepository.getTaskById(active.getId()), equalTo(active));
+        List<Tasks> withArchived = tasksRepository.getTasksWithArchivedByEmployeeId(1L);
+        assertTrue(withArchived.contains(done));
+        assertFalse(tasksRepository.getTasksByEmployeeId(1L).contains(done));
+        List<Tasks> page = tasksRepository.getTasksWithArchivedByEmployeeId(1L, done.getId() - 1, 1);
+        assertThat(page.get(0), equalTo(done));
+    }
+
+    @Test
+    void getTasksByStatus() throws SQLException {
+        Tasks first = tasksRepository.addTask(new Tasks(0L, "Согласовать бюджет", "На согласовании"), 1L);
+        Tasks second = tasksRepository.addTask(new Tasks(0L, "Согласовать отпуск", "На согласовании"), 1L);
+        tasksRepository.addTask(new Tasks(0L, "Написать тесты", "В процессе"), 1L);
+
+        List<Tasks> page = tasksRepository.getTasksByStatus("На согласовании", 0, 1, true);
+        assertThat(page.size(), equalTo(1));
+        assertThat(page.get(0), equalTo(first));
+        assertNotNull(page.get(0).getEmployee().getFirstName());
+
+        page = tasksRepository.getTasksByStatus("На согласовании", first.getId(), 10, false);
+        assertThat(page.size(), equalTo(1));
+        assertThat(page.get(0), equalTo(second));
+        assertTrue(tasksRepository.getTasksByStatus("Неизвестный", 0, 10, false).isEmpty());
+    }
 }
@@ -0,0 +1,87 @@
+package testservice;
+
+import model.dto.EmployeeDto;
+import org.junit.jupiter.api.Test;
+import service.impl.EmployeeAggregateCache;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class EmployeeAggregateCacheTest {
+
+    @Test
+    void get_whenEmployeeChangedDuringLoad_thenNewCallersDoNotGetStaleAggregate() throws Exception {
+        EmployeeAggregateCache cache = new EmployeeAggregateCache(true, false, 1024 * 1024, 60_000, System::nanoTime);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // загрузка начата до записи и прочитала старые данные
+            Future<EmployeeDto> stale = executor.submit(() -> cache.get(1L, () -> {
+                loading.countDown();
+                await(release);
+                return employee("Разработчик");
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            cache.employeeChanged(1L);
+
+            // вызов после записи не присоединяется к старой загрузке, а идёт за новыми данными
+            assertThat(cache.get(1L, () -> employee("Тимлид")).getPosition(), equalTo("Тимлид"));
+
+            release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS).getPosition(), equalTo("Разработчик"));
+            // старый агрегат после завершения загрузки в кеше не остался
+            assertThat(cache.get(1L, () -> employee("Архитектор")).getPosition(), equalTo("Архитектор"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_whenCached_thenReturnCopies() throws SQLException {
+        EmployeeAggregateCache cache = new EmployeeAggregateCache(true, false, 1024 * 1024, 60_000, System::nanoTime);
+        cache.get(1L, () -> employee("Разработчик")).setPosition("Изменено");
+        assertThat(cache.get(1L, () -> employee("Тимлид")).getPosition(), equalTo("Разработчик"));
+    }
+
+    @Test
+    void get_whenTtlExpired_thenReload() throws SQLException {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            AtomicLong now = new AtomicLong();
+            EmployeeAggregateCache cache = new EmployeeAggregateCache(true, offHeap, 4 * 1024 * 1024, 1_000, now::get);
+            cache.get(1L, () -> employee("Разработчик"));
+
+            // запись другого экземпляра сюда не доходит — спасает только TTL
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+            assertThat(cache.get(1L, () -> employee("Тимлид")).getPosition(), equalTo("Разработчик"));
+
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+            assertThat(cache.getIfPresent(1L, true, true), nullValue());
+            assertThat(cache.get(1L, () -> employee("Тимлид")).getPosition(), equalTo("Тимлид"));
+        }
+    }
+
+    private static EmployeeDto employee(String position) {
+        return new EmployeeDto("Иван", "Петров", position, List.of(1L), List.of());
+    }
+
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import repository.ActivityRepository;
 import repository.EmployeeRepository;
 import repository.TasksRepository;
 import service.impl.EmployeeServiceImpl;
+import util.LongHashMap;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -24,6 +25,7 @@ import java.util.List;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -67,8 +69,8 @@ class EmployeeServiceTest {
                 .when(employeeRepository.addEmployee(employee, List.of(1L)))
                 .thenReturn(employee);
         Mockito
-                .when(activityRepository.getActivityById(1L))
-                .thenReturn(activity);
+                .when(activityRepository.getActivitiesByIds(List.of(1L)))
+                .thenReturn(List.of(activity));
 
         EmployeeDto addedEmployee = employeeService.addEmployee(employeeDto, List.of(1L));
         assertThat(employeeDtoExpected, equalTo(addedEmployee));
@@ -78,22 +80,25 @@ class EmployeeServiceTest {
                 getEmployeeById(1L);
         Mockito
                 .verify(activityRepository, Mockito.times(1))
-                .getActivityById(1L);
+                .getActivitiesByIds(List.of(1L));
     }
 
     @Test
     void addEmployee_whenActivityNotFound_thenThrowException() throws SQLException {
         Mockito
-                .when(activityRepository.getActivityById(activity.getId()))
-                .thenThrow(new IllegalArgumentException("Activity not found"));
+                .when(activityRepository.getActivitiesByIds(List.of(activity.getId())))
+                .thenReturn(List.of());
 
-        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        SQLException e = assertThrows(SQLException.class,
                 () -> employeeService.addEmployee(employeeDto, List.of(activity.getId())));
 
         assertThat(e.getMessage(), equalTo("Activity not found"));
         Mockito
                 .verify(activityRepository, Mockito.times(1))
-                .getActivityById(activity.getId());
+                .getActivitiesByIds(List.of(activity.getId()));
+        Mockito
+                .verify(employeeRepository, Mockito.never())
+                .addEmployee(any(), any());
     }
 
     @Test
@@ -165,50 +170,42 @@ class EmployeeServiceTest {
 
     @Test
     void getEmployeeById_WhenNormalReturnEmployee() throws SQLException {
+        employee.setActivities(List.of());
+        employee.setTasks(List.of());
         Mockito
-                .when(employeeRepository.getEmployeeById(employeeId))
+                .when(employeeRepository.getEmployeeWithDetails(employeeId))
                 .thenReturn(employee);
 
         EmployeeDto findEmployee = employeeService.getEmployeeById(employeeId);
         assertThat(employeeDto, equalTo(findEmployee));
         Mockito
                 .verify(employeeRepository, Mockito.times(1))
-                .getEmployeeById(employeeId);
+                .getEmployeeWithDetails(employeeId);
     }
 
     @Test
     void getEmployeeById_WhenNormalWithTasks_ReturnEmployee() throws SQLException {
         employee.setActivities(List.of(activity));
         tasks.setEmployee(employee);
+        employee.setTasks(List.of(tasks));
         Mockito
-                .when(employeeRepository.getEmployeeById(employeeId))
+                .when(employeeRepository.getEmployeeWithDetails(employeeId))
                 .thenReturn(employee);
-        Mockito
-                .when(employeeRepository.findActivityByEmployeeId(employeeId))
-                .thenReturn(List.of(activity));
-        Mockito
-                .when(tasksRepository.getTasksByEmployeeId(employeeId))
-                .thenReturn(List.of(tasks));
 
         EmployeeDto findEmployee = employeeService.getEmployeeById(employeeId);
         assertThat(findEmployee.getTasks().size(), equalTo(1));
-        Mockito
-                .verify(tasksRepository, Mockito.times(1))
-                .getTasksByEmployeeId(employeeId);
-
+        assertThat(findEmployee.getActivity(), equalTo(List.of(1L)));
         Mockito
                 .verify(employeeRepository, Mockito.times(1))
-                .getEmployeeById(employeeId);
-
+                .getEmployeeWithDetails(employeeId);
         Mockito
-                .verify(employeeRepository, Mockito.times(1))
-                .findActivityByEmployeeId(employeeId);
+                .verifyNoInteractions(tasksRepository);
     }
 
     @Test
     void getEmployeeById_WhenEmployeeNotFound() throws SQLException {
         Mockito
-                .when(employeeRepository.getEmployeeById(employeeId))
+                .when(employeeRepository.getEmployeeWithDetails(employeeId))
                 .thenThrow(new IllegalArgumentException("Employee not found"));
 
         IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
@@ -217,7 +214,7 @@ class EmployeeServiceTest {
         assertThat(e.getMessage(), equalTo("Employee not found"));
         Mockito
                 .verify(employeeRepository, Mockito.times(1))
-                .getEmployeeById(employeeId);
+                .getEmployeeWithDetails(employeeId);
     }
 
     @Test
@@ -230,12 +227,27 @@ class EmployeeServiceTest {
                 .when(activityRepository.getActivityById(activityId))
                 .thenReturn(new Activity(1L,"Дизайн"));
 
+        LongHashMap<List<Tasks>> tasksByEmployee = new LongHashMap<>();
+        tasksByEmployee.put(employeeId, new ArrayList<>(List.of(tasks)));
+        Mockito
+                .when(tasksRepository.getTasksByEmployeeIds(aryEq(new long[]{employeeId})))
+                .thenReturn(tasksByEmployee);
+
         List<EmployeeDto> employees = employeeService.getEmployeesByActivityId(activityId);
         assertThat(employees.size(), equalTo(1));
+        assertThat(employees.get(0).getTasks().size(), equalTo(1));
         Mockito
                 .verify(employeeRepository, Mockito.times(1))
                 .getEmployeesByActivityId(activityId);
 
+        // задачи всех сотрудников одним запросом, а не по запросу на сотрудника
+        Mockito
+                .verify(tasksRepository, Mockito.times(1))
+                .getTasksByEmployeeIds(aryEq(new long[]{employeeId}));
+        Mockito
+                .verify(tasksRepository, never())
+                .getTasksByEmployeeId(anyLong());
+
         Mockito
                 .verify(activityRepository, Mockito.times(1))
                 .getActivityById(activityId);
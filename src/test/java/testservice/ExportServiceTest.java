@@ -0,0 +1,165 @@
+package testservice;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import repository.BulkRepository;
+import service.impl.ExportServiceImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+class ExportServiceTest {
+
+    private BulkRepository bulkRepository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        bulkRepository = Mockito.mock(BulkRepository.class);
+        Mockito
+                .when(bulkRepository.getExportRange("employee"))
+                .thenReturn(new long[]{1, 8});
+        Mockito
+                .when(bulkRepository.exportSnapshot())
+                .thenReturn("snapshot");
+    }
+
+    @Test
+    void export_whenParallel_thenSlicesWrittenInOrder() throws Exception {
+        // диапазоны заканчиваются в обратном порядке: каждый ждёт, пока закончится следующий
+        Map<Long, CountDownLatch> finished = new ConcurrentHashMap<>();
+        for (long from = 1; from <= 9; from += 2) {
+            finished.put(from, new CountDownLatch(1));
+        }
+        finished.get(9L).countDown();
+        Mockito
+                .doAnswer(invocation -> {
+                    long from = invocation.getArgument(3);
+                    long to = invocation.getArgument(4);
+                    assertThat(finished.get(to + 1).await(5, TimeUnit.SECONDS), equalTo(true));
+                    boolean header = invocation.getArgument(2);
+                    OutputStream out = invocation.getArgument(6);
+                    out.write(((header ? "id\n" : "") + from + "-" + to + "\n").getBytes(StandardCharsets.UTF_8));
+                    finished.get(from).countDown();
+                    return to - from + 1;
+                })
+                .when(bulkRepository)
+                .export(anyString(), anyBoolean(), anyBoolean(), anyLong(), anyLong(), any(), any());
+        ExportServiceImpl exportService = new ExportServiceImpl(bulkRepository, 4, 5);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export("employee", true, 4, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8), equalTo("id\n1-2\n3-4\n5-6\n7-8\n"));
+        Mockito
+                .verify(bulkRepository, Mockito.times(4))
+                .export(anyString(), anyBoolean(), anyBoolean(), anyLong(), anyLong(), Mockito.eq("snapshot"), any());
+        assertThat(exportService.getAvailableConnections(), equalTo(5));
+    }
+
+    @Test
+    void export_whenOneSliceFails_thenOtherSlicesCancelledAndItsErrorThrown() throws Exception {
+        SQLException failure = new SQLException("canceling statement due to statement timeout");
+        CountDownLatch cancelled = new CountDownLatch(3);
+        Mockito
+                .doAnswer(invocation -> {
+                    long from = invocation.getArgument(3);
+                    if (from == 7) {
+                        throw failure;
+                    }
+                    // остальные пишут, пока их не отменят
+                    OutputStream out = invocation.getArgument(6);
+                    try {
+                        while (true) {
+                            out.write(new byte[8 * 1024]);
+                        }
+                    } catch (IOException e) {
+                        cancelled.countDown();
+                        throw e;
+                    }
+                })
+                .when(bulkRepository)
+                .export(anyString(), anyBoolean(), anyBoolean(), anyLong(), anyLong(), any(), any());
+        ExportServiceImpl exportService = new ExportServiceImpl(bulkRepository, 4, 5);
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> exportService.export("employee", false, 4, OutputStream.nullOutputStream()));
+
+        assertThat(e, sameInstance(failure));
+        assertThat(cancelled.await(5, TimeUnit.SECONDS), equalTo(true));
+        assertThat(exportService.getAvailableConnections(), equalTo(5));
+    }
+
+    @Test
+    void export_whenNoFreeConnections_thenRejectAndReturnPermits() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito
+                .doAnswer(invocation -> {
+                    started.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return 0L;
+                })
+                .when(bulkRepository)
+                .export(anyString(), anyBoolean(), anyBoolean(), anyLong(), anyLong(), any(), any());
+        ExportServiceImpl exportService = new ExportServiceImpl(bulkRepository, 4, 1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> running = executor.submit(() -> {
+                exportService.export("employee", true, 1, OutputStream.nullOutputStream());
+                return null;
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            SQLException e = assertThrows(SQLException.class,
+                    () -> exportService.export("employee", true, 1, OutputStream.nullOutputStream()));
+            assertThat(e.getSQLState(), equalTo(ExportServiceImpl.TOO_MANY_EXPORTS));
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            assertThat(exportService.getAvailableConnections(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void export_whenFewerFreeConnectionsThanParallel_thenFewerSlices() throws Exception {
+        List<Long> slices = new CopyOnWriteArrayList<>();
+        Mockito
+                .doAnswer(invocation -> {
+                    slices.add(invocation.getArgument(3));
+                    return 0L;
+                })
+                .when(bulkRepository)
+                .export(anyString(), anyBoolean(), anyBoolean(), anyLong(), anyLong(), any(), any());
+        // одно место — соединению запроса, два — потокам
+        ExportServiceImpl exportService = new ExportServiceImpl(bulkRepository, 4, 3);
+
+        exportService.export("employee", true, 4, OutputStream.nullOutputStream());
+
+        assertThat(slices.size(), equalTo(2));
+        assertThat(exportService.getAvailableConnections(), equalTo(3));
+    }
+}
@@ -0,0 +1,154 @@
+package testservice;
+
+import model.dto.ImportErrorDto;
+import model.dto.ImportResultDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import repository.BulkRepository;
+import service.impl.ImportServiceImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+
+class ImportServiceTest {
+
+    private BulkRepository bulkRepository;
+    // строки, которые сервис передал бы в COPY
+    private StringWriter copied;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        bulkRepository = Mockito.mock(BulkRepository.class);
+        copied = new StringWriter();
+        Mockito
+                .when(bulkRepository.importEmployees(any(), any()))
+                .thenAnswer(invocation -> copy(invocation.getArgument(0)));
+        Mockito
+                .when(bulkRepository.importTasks(any(), any()))
+                .thenAnswer(invocation -> copy(invocation.getArgument(0)));
+    }
+
+    @Test
+    void importEmployees_whenCsvWithQuotes_thenCopyRowsEscaped() throws SQLException, IOException {
+        ImportResultDto result = service(100).importEmployees(body(
+                "position,lastName,firstName,id",
+                "\"Разработчик, \"\"старший\"\"\",Петров,Иван,",
+                "Аналитик,Смирнова,Анна,7"), true);
+
+        assertThat(copied.toString(), equalTo(
+                "2,,\"Иван\",\"Петров\",\"Разработчик, \"\"старший\"\"\"\n"
+                        + "3,7,\"Анна\",\"Смирнова\",\"Аналитик\"\n"));
+        assertThat(result.getImported(), equalTo(2L));
+        assertThat(result.getRejected(), equalTo(0L));
+    }
+
+    @Test
+    void importTasks_whenEmptyCellOrQuotedEmpty_thenNullOrEmptyString() throws SQLException, IOException {
+        service(100).importTasks(body(
+                "title,status,employeeId",
+                "Отчет,,1",
+                "Отчет,\"\",1"), true);
+
+        // без кавычек — NULL, в кавычках — пустая строка
+        assertThat(copied.toString(), equalTo(
+                "2,\"Отчет\",,1\n"
+                        + "3,\"Отчет\",\"\",1\n"));
+    }
+
+    @Test
+    void importEmployees_whenRequiredCellEmpty_thenRowRejected() throws SQLException, IOException {
+        ImportResultDto result = service(100).importEmployees(body(
+                "firstName,lastName,position",
+                "\"\",Петров,Разработчик",
+                ",Петров,Разработчик"), true);
+
+        assertThat(copied.toString(), equalTo(""));
+        assertThat(result.getErrors(), equalTo(List.of(
+                new ImportErrorDto(2, "firstName is required"),
+                new ImportErrorDto(3, "firstName is required"))));
+    }
+
+    @Test
+    void importEmployees_whenHeaderMissesRequiredColumn_thenThrow() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service(100).importEmployees(body("firstName,position", "Иван,Разработчик"), true));
+        assertThat(e.getMessage(), equalTo("CSV header has no column lastName"));
+    }
+
+    @Test
+    void importTasks_whenValuesInvalid_thenEachRowRejectedWithReason() throws SQLException, IOException {
+        ImportResultDto result = service(100).importTasks(body(
+                "{\"title\":\"" + "а".repeat(256) + "\",\"employeeId\":1}",
+                "{\"title\":\"Отчет\\u0000\",\"employeeId\":1}",
+                "{\"title\":\"Отчет\",\"employeeId\":\"abc\"}",
+                "{\"title\":",
+                "[1]",
+                "{\"title\":\"" + "а".repeat(255) + "\",\"employeeId\":\" 5 \"}"), false);
+
+        assertThat(result.getErrors(), equalTo(List.of(
+                new ImportErrorDto(1, "title is longer than 255"),
+                new ImportErrorDto(2, "title contains NUL character"),
+                new ImportErrorDto(3, "employeeId is not a number"),
+                new ImportErrorDto(4, "Malformed JSON"),
+                new ImportErrorDto(5, "Expected JSON object"))));
+        assertThat(copied.toString(), equalTo("6,\"" + "а".repeat(255) + "\",,5\n"));
+    }
+
+    @Test
+    void importEmployees_whenUnterminatedQuote_thenRowRejected() throws SQLException, IOException {
+        ImportResultDto result = service(100).importEmployees(body(
+                "firstName,lastName,position",
+                "\"Иван,Петров,Разработчик"), true);
+
+        assertThat(result.getErrors(), equalTo(List.of(new ImportErrorDto(2, "Unterminated quoted field"))));
+    }
+
+    @Test
+    void importEmployees_whenMoreErrorsThanLimit_thenKeepLowestLines() throws SQLException, IOException {
+        // отказы базы приходят после ошибок разбора, но по более ранним строкам
+        Mockito
+                .doAnswer(invocation -> {
+                    long copiedRows = copy(invocation.getArgument(0));
+                    BulkRepository.RejectHandler rejected = invocation.getArgument(1);
+                    rejected.reject(1, "Employee already exists");
+                    return copiedRows - 1;
+                })
+                .when(bulkRepository).importEmployees(any(), any());
+
+        ImportResultDto result = service(2).importEmployees(body(
+                "{\"firstName\":\"Иван\",\"lastName\":\"Петров\",\"position\":\"Разработчик\"}",
+                "{\"firstName\":\"Анна\",\"lastName\":\"Смирнова\",\"position\":\"Аналитик\"}",
+                "{}",
+                "{}"), false);
+
+        assertThat(result.getImported(), equalTo(1L));
+        assertThat(result.getRejected(), equalTo(3L));
+        assertThat(result.getErrors().stream().map(ImportErrorDto::getLine).collect(Collectors.toList()),
+                equalTo(List.of(1L, 3L)));
+    }
+
+    private ImportServiceImpl service(int maxErrors) {
+        return new ImportServiceImpl(bulkRepository, maxErrors);
+    }
+
+    private long copy(BulkRepository.CopySource source) throws IOException {
+        int before = copied.getBuffer().length();
+        source.writeTo(copied);
+        return copied.getBuffer().substring(before).lines().count();
+    }
+
+    private static BufferedReader body(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+}
@@ -0,0 +1,97 @@
+package testservlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import model.dto.EmployeeDto;
+import model.dto.PageDto;
+import model.dto.TasksDto;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import servlet.FieldSelection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class FieldSelectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TasksDto task = new TasksDto("Иван", "Петров", "Отчет", "В работе");
+
+    @Test
+    void from_whenNoParams_thenDefaultAndEverythingIncluded() throws IOException {
+        FieldSelection selection = FieldSelection.from(request(null, null));
+
+        assertThat(selection.isDefault(), equalTo(true));
+        assertThat(selection.includes("employee", "firstName", "lastName"), equalTo(true));
+        assertThat(write(selection, task), equalTo(objectMapper.writeValueAsString(task)));
+    }
+
+    @Test
+    void write_whenFieldsGiven_thenOnlyThoseFields() throws IOException {
+        FieldSelection selection = FieldSelection.from(request(" title , ,status", null));
+
+        assertThat(selection.isDefault(), equalTo(false));
+        assertThat(write(selection, task), equalTo("{\"title\":\"Отчет\",\"status\":\"В работе\"}"));
+    }
+
+    @Test
+    void includes_whenNoRelationFieldRequested_thenRelationSkipped() {
+        FieldSelection selection = FieldSelection.from(request("title,status", null));
+
+        assertThat(selection.includes("employee", "firstName", "lastName"), equalTo(false));
+    }
+
+    @Test
+    void includes_whenOneRelationFieldRequested_thenRelationLoaded() throws IOException {
+        FieldSelection selection = FieldSelection.from(request("title,firstName", null));
+
+        assertThat(selection.includes("employee", "firstName", "lastName"), equalTo(true));
+        assertThat(write(selection, task), equalTo("{\"firstName\":\"Иван\",\"title\":\"Отчет\"}"));
+    }
+
+    @Test
+    void includes_whenRelationNotInInclude_thenItsFieldsOmitted() throws IOException {
+        FieldSelection selection = FieldSelection.from(request(null, "tasks"));
+        EmployeeDto employee = new EmployeeDto("Иван", "Петров", "Разработчик", List.of(1L), List.of(task));
+
+        assertThat(selection.includes("activities", "activity"), equalTo(false));
+        assertThat(selection.includes("tasks", "tasks"), equalTo(true));
+        assertThat(write(selection, employee), equalTo(
+                "{\"firstName\":\"Иван\",\"lastName\":\"Петров\",\"position\":\"Разработчик\",\"tasks\":["
+                        + objectMapper.writeValueAsString(task) + "]}"));
+    }
+
+    @Test
+    void from_whenUnknownNames_thenIgnored() throws IOException {
+        FieldSelection selection = FieldSelection.from(request("title,salary", "manager"));
+
+        assertThat(selection.includes("employee", "firstName", "lastName"), equalTo(false));
+        assertThat(write(selection, task), equalTo("{\"title\":\"Отчет\"}"));
+    }
+
+    @Test
+    void write_whenPage_thenItemsFilteredAndCursorKept() throws IOException {
+        FieldSelection selection = FieldSelection.from(request("title", null));
+
+        assertThat(write(selection, new PageDto<>(List.of(task), "abc")),
+                equalTo("{\"items\":[{\"title\":\"Отчет\"}],\"nextCursor\":\"abc\"}"));
+    }
+
+    private static HttpServletRequest request(String fields, String include) {
+        HttpServletRequest req = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(req.getParameter("fields")).thenReturn(fields);
+        Mockito.when(req.getParameter("include")).thenReturn(include);
+        return req;
+    }
+
+    private String write(FieldSelection selection, Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        selection.write(objectMapper, out, value);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
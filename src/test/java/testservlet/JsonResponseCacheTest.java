@@ -0,0 +1,195 @@
+package testservlet;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import servlet.JsonResponseCache;
+import servlet.JsonResponses;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+class JsonResponseCacheTest {
+
+    private static final byte[] BODY = "{\"firstName\":\"Иван\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void writeCached_whenNoIfNoneMatch_thenBodyWithEtagAndLength() throws IOException {
+        JsonResponseCache.CachedJson json = new JsonResponseCache.CachedJson(BODY);
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        Mockito
+                .doReturn(outputStream(body))
+                .when(response).getOutputStream();
+
+        JsonResponses.writeCached(request, response, json);
+
+        Mockito
+                .verify(response, Mockito.times(1))
+                .setHeader("ETag", json.getEtag());
+        Mockito
+                .verify(response, Mockito.times(1))
+                .setContentLength(BODY.length);
+        Mockito
+                .verify(response, Mockito.never())
+                .setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(body.toByteArray(), equalTo(BODY));
+    }
+
+    @Test
+    void writeCached_whenIfNoneMatchEqualsEtag_thenNotModifiedWithoutBody() throws IOException {
+        JsonResponseCache.CachedJson json = new JsonResponseCache.CachedJson(BODY);
+        for (String ifNoneMatch : new String[]{json.getEtag(), "\"other\", " + json.getEtag(), " * "}) {
+            HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+            HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+            Mockito
+                    .doReturn(ifNoneMatch)
+                    .when(request).getHeader("If-None-Match");
+
+            JsonResponses.writeCached(request, response, json);
+
+            Mockito
+                    .verify(response, Mockito.times(1))
+                    .setHeader("ETag", json.getEtag());
+            Mockito
+                    .verify(response, Mockito.times(1))
+                    .setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            Mockito
+                    .verify(response, Mockito.never())
+                    .getOutputStream();
+        }
+    }
+
+    @Test
+    void cachedJson_whenBodyDiffers_thenEtagDiffers() {
+        String etag = new JsonResponseCache.CachedJson(BODY).getEtag();
+        assertThat(new JsonResponseCache.CachedJson(BODY).getEtag(), equalTo(etag));
+        assertThat(new JsonResponseCache.CachedJson("{\"firstName\":\"Анна\"}".getBytes(StandardCharsets.UTF_8))
+                .getEtag(), not(equalTo(etag)));
+    }
+
+    @Test
+    void employee_whenCached_thenLoaderNotCalled() throws SQLException, IOException {
+        JsonResponseCache cache = new JsonResponseCache(true, 1024 * 1024);
+        AtomicInteger loads = new AtomicInteger();
+        JsonResponseCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return BODY;
+        };
+
+        cache.employee(1L, loader);
+        assertThat(cache.employee(1L, loader).getBody(), equalTo(BODY));
+        assertThat(loads.get(), equalTo(1));
+
+        cache.employeeChanged(1L);
+        cache.employee(1L, loader);
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    void employee_whenEmployeeChangedDuringLoad_thenBodyNotCached() throws Exception {
+        JsonResponseCache cache = new JsonResponseCache(true, 1024 * 1024);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // тело собрано из данных, прочитанных до записи
+            Future<JsonResponseCache.CachedJson> stale = executor.submit(() -> cache.employee(1L, () -> {
+                loading.countDown();
+                await(release);
+                return "\"до записи\"".getBytes(StandardCharsets.UTF_8);
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS), equalTo(true));
+
+            cache.employeeChanged(1L);
+            release.countDown();
+            stale.get(5, TimeUnit.SECONDS);
+
+            // старое тело после завершения загрузки в кеше не осталось
+            assertThat(new String(cache.employee(1L, () -> "\"после записи\"".getBytes(StandardCharsets.UTF_8))
+                    .getBody(), StandardCharsets.UTF_8), equalTo("\"после записи\""));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void activities_whenEmployeeOrActivityChanged_thenReload() throws SQLException, IOException {
+        JsonResponseCache cache = new JsonResponseCache(true, 1024 * 1024);
+        AtomicInteger loads = new AtomicInteger();
+        JsonResponseCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return BODY;
+        };
+
+        cache.activities(loader);
+        cache.activities(loader);
+        assertThat(loads.get(), equalTo(1));
+
+        // в списке активностей есть сотрудники
+        cache.employeeChanged(1L);
+        cache.activities(loader);
+        assertThat(loads.get(), equalTo(2));
+
+        cache.activitiesChanged();
+        cache.activities(loader);
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    void activities_whenBodyTooLarge_thenNotCached() throws SQLException, IOException {
+        JsonResponseCache cache = new JsonResponseCache(true, 4 * BODY.length - 1);
+        AtomicInteger loads = new AtomicInteger();
+        JsonResponseCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return BODY;
+        };
+
+        cache.activities(loader);
+        cache.activities(loader);
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    private static ServletOutputStream outputStream(ByteArrayOutputStream out) {
+        return new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+}
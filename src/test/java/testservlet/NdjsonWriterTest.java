@@ -0,0 +1,28 @@
+package testservlet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import model.dto.TasksDto;
+import org.junit.jupiter.api.Test;
+import servlet.NdjsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class NdjsonWriterTest {
+
+    @Test
+    void write_thenOneObjectPerLineWithoutSeparator() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NdjsonWriter writer = new NdjsonWriter(new ObjectMapper(), out)) {
+            writer.write(new TasksDto("Иван", "Петров", "Отчет", "В работе"));
+            writer.write(new TasksDto("Иван", "Петров", "Ревью", null));
+        }
+        assertThat(out.toString(StandardCharsets.UTF_8), equalTo(
+                "{\"firstName\":\"Иван\",\"lastName\":\"Петров\",\"title\":\"Отчет\",\"status\":\"В работе\"}\n"
+                        + "{\"firstName\":\"Иван\",\"lastName\":\"Петров\",\"title\":\"Ревью\",\"status\":null}\n"));
+    }
+}
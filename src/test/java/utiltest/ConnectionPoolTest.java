@@ -0,0 +1,163 @@
+package utiltest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:stub:pool";
+    private static final AtomicInteger OPENED = new AtomicInteger();
+    private static StubDriver driver;
+
+    private ConnectionPool pool;
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        driver = new StubDriver();
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @BeforeEach
+    void setUp() {
+        OPENED.set(0);
+        pool = new ConnectionPool(URL, "root", "root", 0, 2, 100, 60_000, 600_000, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void borrow_whenReleased_thenReusePhysicalConnection() throws SQLException {
+        try (Connection connection = pool.borrow()) {
+            assertFalse(connection.isClosed());
+            assertThat(pool.getActiveCount(), equalTo(1));
+        }
+        Connection again = pool.borrow();
+        assertThat(OPENED.get(), equalTo(1));
+        again.close();
+        assertThat(pool.getActiveCount(), equalTo(0));
+        assertThat(pool.getIdleCount(), equalTo(1));
+        assertThat(pool.getBorrowCount(), equalTo(2L));
+    }
+
+    @Test
+    void borrow_whenPoolExhausted_thenThrowTimeout() throws SQLException {
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+
+        assertThrows(SQLTimeoutException.class, () -> pool.borrow());
+        assertThat(pool.getBorrowTimeoutCount(), equalTo(1L));
+
+        first.close();
+        second.close();
+        assertThat(pool.getTotalCount(), equalTo(2));
+    }
+
+    @Test
+    void close_whenCalledTwice_thenReleaseOnce() throws SQLException {
+        Connection connection = pool.borrow();
+        connection.close();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThat(pool.getIdleCount(), equalTo(1));
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void prepareStatement_whenSameSqlOnSameConnection_thenReuseStatement() throws SQLException {
+        String sql = "SELECT id, name FROM activity WHERE id = ?";
+        PreparedStatement first;
+        try (Connection connection = pool.borrow();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            first = ps;
+        }
+        try (Connection connection = pool.borrow();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             PreparedStatement concurrent = connection.prepareStatement(sql)) {
+            assertFalse(ps.isClosed());
+            assertFalse(concurrent.isClosed());
+        }
+
+        assertTrue(first.isClosed());
+        assertThat(pool.getStatementCacheHits(), equalTo(1L));
+        assertThat(pool.getStatementCacheMisses(), equalTo(2L));
+    }
+
+    private static final class StubDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            OPENED.incrementAndGet();
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocation -> mock(PreparedStatement.class));
+            return connection;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:stub:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
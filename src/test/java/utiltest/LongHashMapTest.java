@@ -0,0 +1,68 @@
+package utiltest;
+
+import org.junit.jupiter.api.Test;
+import util.LongHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashMapTest {
+
+    @Test
+    void put_whenKeyExists_thenReplaceValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertThat(map.put(1L, "Мафия"), nullValue());
+        assertThat(map.put(1L, "Дизайн"), equalTo("Мафия"));
+        assertThat(map.get(1L), equalTo("Дизайн"));
+        assertThat(map.size(), equalTo(1));
+    }
+
+    @Test
+    void remove_whenCollisionChain_thenKeepOtherKeysReachable() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        for (long key = 0; key < 100; key++) {
+            map.put(key, key);
+        }
+        for (long key = 0; key < 100; key += 2) {
+            assertThat(map.remove(key), equalTo(key));
+        }
+        for (long key = 0; key < 100; key++) {
+            assertThat(map.containsKey(key), equalTo(key % 2 == 1));
+        }
+        assertThat(map.size(), equalTo(50));
+    }
+
+    @Test
+    void randomOperations_thenBehaveLikeHashMap() {
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextBoolean()) {
+                assertThat(map.put(key, i), equalTo(expected.put(key, i)));
+            } else {
+                assertThat(map.remove(key), equalTo(expected.remove(key)));
+            }
+        }
+        assertThat(map.size(), equalTo(expected.size()));
+        expected.forEach((key, value) -> assertThat(map.get(key), equalTo(value)));
+    }
+
+    @Test
+    void clear_thenEmpty() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(-5L, "a");
+        assertTrue(map.containsKey(-5L));
+        map.clear();
+        assertFalse(map.containsKey(-5L));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package utiltest;
+
+import org.junit.jupiter.api.Test;
+import util.OffHeapStore;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapStoreTest {
+
+    @Test
+    void put_thenReadSameBytes() {
+        OffHeapStore store = new OffHeapStore(1_024, 256, 16);
+        store.put(1L, bytes("Мафия"));
+        store.put(-7L, bytes("Дизайн"));
+        assertThat(store.read(1L, OffHeapStoreTest::string), equalTo("Мафия"));
+        assertThat(store.read(-7L, OffHeapStoreTest::string), equalTo("Дизайн"));
+        assertThat(store.read(2L, OffHeapStoreTest::string), nullValue());
+        assertThat(store.size(), equalTo(2));
+    }
+
+    @Test
+    void put_whenKeyExists_thenReplaceAndReleaseOldBytes() {
+        OffHeapStore store = new OffHeapStore(1_024, 256, 16);
+        store.put(1L, bytes("Мафия"));
+        store.put(1L, bytes("Разработчик"));
+        assertThat(store.read(1L, OffHeapStoreTest::string), equalTo("Разработчик"));
+        assertThat(store.getLiveBytes(), equalTo((long) (Integer.BYTES + bytes("Разработчик").length)));
+    }
+
+    @Test
+    void put_whenSegmentsFull_thenCompactAndKeepLiveRecords() {
+        OffHeapStore store = new OffHeapStore(512, 128, 16);
+        // перезапись одних и тех же ключей много раз больше ёмкости: место освобождается уплотнением
+        for (int round = 0; round < 100; round++) {
+            for (long key = 0; key < 10; key++) {
+                assertTrue(store.put(key, bytes("задача " + round + "/" + key)));
+            }
+        }
+        for (long key = 0; key < 10; key++) {
+            assertThat(store.read(key, OffHeapStoreTest::string), equalTo("задача 99/" + key));
+        }
+        assertThat(store.getAllocatedBytes(), equalTo(512L));
+    }
+
+    @Test
+    void put_whenNoSpaceLeft_thenReject() {
+        OffHeapStore store = new OffHeapStore(256, 128, 16);
+        assertFalse(store.put(1L, new byte[200]));
+        int stored = 0;
+        for (long key = 0; key < 100; key++) {
+            if (store.put(key, new byte[28])) {
+                stored++;
+            }
+        }
+        assertThat(stored, equalTo(8));
+        assertThat(store.getRejectedCount(), equalTo(93L));
+    }
+
+    @Test
+    void removeAndClear_thenMiss() {
+        OffHeapStore store = new OffHeapStore(1_024, 256, 16);
+        store.put(1L, bytes("Мафия"));
+        store.put(2L, bytes("Дизайн"));
+        assertTrue(store.remove(1L));
+        assertFalse(store.remove(1L));
+        assertThat(store.read(1L, OffHeapStoreTest::string), nullValue());
+        store.clear();
+        assertThat(store.read(2L, OffHeapStoreTest::string), nullValue());
+        assertThat(store.getLiveBytes(), equalTo(0L));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
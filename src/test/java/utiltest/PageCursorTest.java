@@ -0,0 +1,24 @@
+package utiltest;
+
+import org.junit.jupiter.api.Test;
+import util.PageCursor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTest {
+
+    @Test
+    void decode_whenEncoded_thenReturnSameId() {
+        for (long id : new long[]{0L, 1L, 42L, Long.MAX_VALUE}) {
+            assertThat(PageCursor.decode(PageCursor.encode(id)), equalTo(id));
+        }
+    }
+
+    @Test
+    void decode_whenMalformed_thenThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("абв"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("AQ"));
+    }
+}
@@ -0,0 +1,119 @@
+package utiltest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ResultSetPublisher;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResultSetPublisherTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private ResultSetPublisher<Long> publisher;
+    private RecordingSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getLong("id")).thenReturn(1L, 2L, 3L);
+
+        publisher = new ResultSetPublisher<>(() -> connection, "SELECT id FROM activity", ps -> ps.setLong(1, 7L),
+                ResultSetPublisher.rows(rs -> rs.getLong("id")), Runnable::run);
+        subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+    }
+
+    @Test
+    void request_whenPartialDemand_thenReadOnlyRequestedRows() throws SQLException {
+        verify(connection, never()).prepareStatement(anyString());
+
+        subscriber.subscription.request(2);
+
+        assertThat(subscriber.items, equalTo(List.of(1L, 2L)));
+        verify(resultSet, times(2)).next();
+        verify(statement).setLong(1, 7L);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void request_whenResultExhausted_thenCompleteAndRelease() throws SQLException {
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.items, equalTo(List.of(1L, 2L, 3L)));
+        assertTrue(subscriber.completed);
+        verify(connection).close();
+    }
+
+    @Test
+    void cancel_whenStreaming_thenReleaseConnection() throws SQLException {
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        assertThat(subscriber.items, equalTo(List.of(1L)));
+        assertFalse(subscriber.completed);
+        verify(resultSet).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void request_whenNonPositive_thenSignalError() throws SQLException {
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error, instanceOf(IllegalArgumentException.class));
+        verify(connection, never()).prepareStatement(anyString());
+    }
+
+    private static final class RecordingSubscriber implements Flow.Subscriber<Long> {
+
+        private final List<Long> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Long item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package utiltest;
+
+import org.junit.jupiter.api.Test;
+import util.SingleFlight;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void load_whenConcurrentCallsForSameKey_thenLoadOnce() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.load(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "Мафия";
+                })));
+            }
+            // отпускаем загрузку, только когда все остальные вызовы к ней присоединились
+            awaitWaiting(flight, 1L, CALLERS - 1);
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), equalTo("Мафия"));
+            }
+            assertThat(loads.get(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_whenLoaderFails_thenWaitersGetSameException() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        SQLException failure = new SQLException("Employee not found");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<String> first = executor.submit(() -> flight.load(1L, () -> {
+                started.countDown();
+                await(release);
+                throw failure;
+            }));
+            await(started);
+            Future<String> second = executor.submit(() -> flight.load(1L, () -> "не должен вызываться"));
+            awaitWaiting(flight, 1L, 1);
+            release.countDown();
+            for (Future<String> result : List.of(first, second)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertThat(e.getCause(), instanceOf(SQLException.class));
+                assertThat(e.getCause(), sameInstance(failure));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_whenPreviousCallFinished_thenLoadAgain() throws SQLException {
+        SingleFlight<Integer> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        flight.load(1L, loads::incrementAndGet);
+        flight.load(1L, loads::incrementAndGet);
+        flight.load(2L, loads::incrementAndGet);
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    void forget_thenNewCallersStartOwnLoad() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> stale = executor.submit(() -> flight.load(1L, () -> {
+                started.countDown();
+                await(release);
+                return "до записи";
+            }));
+            await(started);
+            flight.forget(1L);
+            assertThat(flight.load(1L, () -> "после записи"), equalTo("после записи"));
+            release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS), equalTo("до записи"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitWaiting(SingleFlight<?> flight, long key, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.waiting(key) < waiters) {
+            if (System.nanoTime() > deadline) {
+                fail("Only " + flight.waiting(key) + " of " + waiters + " callers joined the load");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package utiltest;
+
+import org.junit.jupiter.api.Test;
+import util.TinyLfuCache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void put_whenOverMaxWeight_thenEvictUntilWithinBound() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(1_000, 64, String::length);
+        for (long key = 0; key < 500; key++) {
+            cache.put(key, "x".repeat(10 + (int) (key % 40)));
+            assertThat(cache.getWeight(), lessThanOrEqualTo(1_000L));
+        }
+        assertThat(cache.getEvictionCount(), greaterThan(0L));
+    }
+
+    @Test
+    void put_whenHeavierThanCache_thenNotStored() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(10, 16, String::length);
+        cache.put(1L, "Разработчик");
+        assertThat(cache.get(1L), nullValue());
+        assertThat(cache.getWeight(), equalTo(0L));
+    }
+
+    @Test
+    void scan_whenHotKeysFrequent_thenHotKeysSurvive() {
+        TinyLfuCache<Long> cache = new TinyLfuCache<>(100, 100, value -> 1);
+        for (int round = 0; round < 20; round++) {
+            for (long key = 0; key < 50; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+        // разовый проход по тысяче холодных ключей
+        for (long key = 1_000; key < 2_000; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+        int survived = 0;
+        for (long key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                survived++;
+            }
+        }
+        assertThat(survived, greaterThan(45));
+    }
+
+    @Test
+    void invalidate_thenMissAndWeightReleased() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(1_000, 16, String::length);
+        cache.put(1L, "Мафия");
+        cache.put(2L, "Дизайн");
+        cache.invalidate(1L);
+        assertThat(cache.get(1L), nullValue());
+        assertThat(cache.get(2L), equalTo("Дизайн"));
+        assertThat(cache.getWeight(), equalTo(6L));
+
+        cache.invalidateAll();
+        assertThat(cache.size(), equalTo(0));
+        assertThat(cache.getWeight(), equalTo(0L));
+        cache.put(3L, "Мафия");
+        assertThat(cache.get(3L), equalTo("Мафия"));
+    }
+
+    @Test
+    void put_whenKeyExists_thenReplaceValueAndWeight() {
+        TinyLfuCache<String> cache = new TinyLfuCache<>(1_000, 16, String::length);
+        cache.put(1L, "Мафия");
+        cache.get(1L);
+        cache.put(1L, "Разработчик");
+        assertThat(cache.get(1L), equalTo("Разработчик"));
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getWeight(), equalTo(11L));
+    }
+}